@@ -0,0 +1,127 @@
+package net.companycompass.benchmark;
+
+import net.companycompass.config.WebConfig;
+import net.companycompass.model.Company;
+import net.companycompass.model.CompanyPage;
+import net.companycompass.model.CompanySort;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
+import org.thymeleaf.web.IWebExchange;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering of the company list view with the template resolver configured in {@link WebConfig}
+ * for pages of different sizes: the "company-table" rows and pager rendered on a table cache miss, and
+ * the "layout" page with navigation and footer around an already rendered table, which is all that is
+ * left on a cache hit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class CompanyListRenderBenchmark {
+    @Param({"20", "100"})
+    private int rows;
+
+    private GenericApplicationContext applicationContext;
+    private SpringTemplateEngine templateEngine;
+    private IWebExchange exchange;
+    private Map<String, Object> tableVariables;
+    private Map<String, Object> pageVariables;
+
+    @Setup
+    public void setUp() {
+        applicationContext = new GenericApplicationContext();
+        applicationContext.refresh();
+        SpringResourceTemplateResolver templateResolver = new WebConfig(new StandardEnvironment(), null, null).templateResolver();
+        templateResolver.setApplicationContext(applicationContext);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        MockServletContext servletContext = new MockServletContext();
+        exchange = JakartaServletWebApplication.buildApplication(servletContext)
+                .buildExchange(new MockHttpServletRequest(servletContext, "GET", "/"), new MockHttpServletResponse());
+
+        List<Company> companies = new ArrayList<>(rows + 1);
+        for (int i = 1; i <= rows + 1; i++) {
+            Company company = new Company();
+            company.setId((long) i);
+            company.setName("Company " + i);
+            company.setLocation("City " + (i % 50) + ", ST");
+            companies.add(company);
+        }
+        CompanyPage page = CompanyPage.of(companies, CompanySort.ID, rows, false, false);
+        ThymeleafEvaluationContext evaluationContext = new ThymeleafEvaluationContext(applicationContext, null);
+        tableVariables = new HashMap<>();
+        tableVariables.put("companies", page.companies());
+        tableVariables.put("page", page);
+        tableVariables.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME, evaluationContext);
+
+        pageVariables = new HashMap<>();
+        pageVariables.put("content", "company");
+        pageVariables.put("pageTitle", "Companies");
+        pageVariables.put("companyTable", templateEngine.process("company-table", new WebContext(exchange, Locale.US, tableVariables)));
+        pageVariables.put("isDemoMode", false);
+        pageVariables.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME, evaluationContext);
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public long renderCompanyTable() {
+        CountingWriter writer = new CountingWriter();
+        templateEngine.process("company-table", new WebContext(exchange, Locale.US, tableVariables), writer);
+        return writer.count;
+    }
+
+    @Benchmark
+    public long renderCompanyListAroundCachedTable() {
+        CountingWriter writer = new CountingWriter();
+        templateEngine.process("layout", new WebContext(exchange, Locale.US, pageVariables), writer);
+        return writer.count;
+    }
+
+    /**
+     * Discards the rendered output, keeping only its length so the work cannot be optimized away.
+     */
+    private static final class CountingWriter extends Writer {
+        private long count;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
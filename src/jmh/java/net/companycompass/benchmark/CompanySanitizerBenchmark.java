@@ -0,0 +1,39 @@
+package net.companycompass.benchmark;
+
+import net.companycompass.model.Company;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput and allocation rate of the input sanitizing applied by the {@link Company}
+ * setters, for already clean input, input with characters to strip, and input over the length limit.
+ * Run with the {@code gc} profiler (the default in the build) to see bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public class CompanySanitizerBenchmark {
+    @Param({"clean", "dirty", "long"})
+    private String input;
+
+    private String value;
+    private final Company company = new Company();
+
+    @Setup
+    public void setUp() {
+        value = switch (input) {
+            case "clean" -> "SilverLine Architecture";
+            case "dirty" -> "  <b>Silver*Line</b> Architecture!!! #1 ";
+            default -> "SilverLine Architecture and Engineering Consultants of the Greater Chicago Area";
+        };
+    }
+
+    @Benchmark
+    public String setName() {
+        company.setName(value);
+        return company.getName();
+    }
+}
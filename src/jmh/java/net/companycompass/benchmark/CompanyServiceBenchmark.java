@@ -0,0 +1,119 @@
+package net.companycompass.benchmark;
+
+import net.companycompass.config.db.PersistenceConfig;
+import net.companycompass.model.Company;
+import net.companycompass.model.CompanyPage;
+import net.companycompass.model.CompanySort;
+import net.companycompass.service.CompanyImportService;
+import net.companycompass.service.CompanyService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures CRUD throughput of the database-backed {@link CompanyService} against an in-memory H2
+ * database at several dataset sizes, both directly on {@code DatabaseCompanyService} and through
+ * the caching layer. Each trial boots the persistence context on a fresh database and loads the
+ * dataset through the bulk importer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class CompanyServiceBenchmark {
+    @Param({"100", "10000", "100000"})
+    private int datasetSize;
+
+    @Param({"databaseCompanyService", "cachingCompanyService"})
+    private String service;
+
+    private String url;
+    private AnnotationConfigApplicationContext context;
+    private CompanyService companyService;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        url = "jdbc:h2:mem:benchmark-" + datasetSize + "-" + service + ";DB_CLOSE_DELAY=-1";
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().setActiveProfiles("local");
+        context.getEnvironment().getPropertySources().addFirst(
+                new MapPropertySource("benchmark", Map.of("db.url", url)));
+        context.register(PersistenceConfig.class);
+        context.refresh();
+
+        StringBuilder csv = new StringBuilder("name,location\n");
+        for (int i = 0; i < datasetSize; i++) {
+            csv.append("Company ").append(i).append(",\"City ").append(i % 500).append(", ST\"\n");
+        }
+        context.getBean(CompanyImportService.class)
+                .importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        List<Long> allIds = new JdbcTemplate(context.getBean(DataSource.class))
+                .queryForList("SELECT id FROM companies ORDER BY id", Long.class);
+        ids = allIds.stream().mapToLong(Long::longValue).toArray();
+        companyService = context.getBean(service, CompanyService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            connection.createStatement().execute("SHUTDOWN");
+        }
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    @Benchmark
+    public Company getCompanyById() {
+        return companyService.getCompanyById(randomId());
+    }
+
+    @Benchmark
+    public CompanyPage getFirstPage() {
+        return companyService.getCompanyPage(CompanySort.ID, null, null, CompanyPage.DEFAULT_SIZE);
+    }
+
+    @Benchmark
+    public CompanyPage getPageByNameAfterRandomCursor() {
+        return companyService.getCompanyPage(CompanySort.NAME, randomId(), null, CompanyPage.DEFAULT_SIZE);
+    }
+
+    @Benchmark
+    public List<Company> searchCompanies() {
+        return companyService.searchCompanies("company 12", 20);
+    }
+
+    @Benchmark
+    public void updateCompany() {
+        Company company = new Company();
+        company.setId(randomId());
+        company.setName("Updated " + ThreadLocalRandom.current().nextInt(1000));
+        company.setLocation("Somewhere, ST");
+        companyService.updateCompany(company);
+    }
+
+    @Benchmark
+    public void addAndDeleteCompany() {
+        Company company = new Company();
+        company.setName("Transient Company");
+        company.setLocation("Nowhere, ST");
+        companyService.addCompany(company);
+        companyService.deleteCompany(company.getId(), null);
+    }
+}
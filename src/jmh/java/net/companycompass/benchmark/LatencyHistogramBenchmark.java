@@ -0,0 +1,36 @@
+package net.companycompass.benchmark;
+
+import net.companycompass.metrics.LatencyHistogram;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the recording path of {@link LatencyHistogram} under contention from several threads.
+ * The gc profiler should report no allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Threads(4)
+public class LatencyHistogramBenchmark {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @State(Scope.Thread)
+    public static class Observation {
+        private long nanos = 1_000_000;
+
+        long next() {
+            // Cycles through the bucket range from 1 ms to about 16 s
+            nanos = nanos > 16_000_000_000L ? 1_000_000 : nanos * 2;
+            return nanos;
+        }
+    }
+
+    @Benchmark
+    public void record(Observation observation) {
+        histogram.record(observation.next());
+    }
+}
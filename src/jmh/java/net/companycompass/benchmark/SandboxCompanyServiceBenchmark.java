@@ -0,0 +1,58 @@
+package net.companycompass.benchmark;
+
+import net.companycompass.model.Company;
+import net.companycompass.model.CompanyPage;
+import net.companycompass.model.CompanySort;
+import net.companycompass.service.SandboxCompanyService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-session cost of the demo {@link SandboxCompanyService}: creating a session over
+ * the shared seed dataset and serving reads and writes from its overlay.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class SandboxCompanyServiceBenchmark {
+    private SandboxCompanyService sandbox;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        sandbox = new SandboxCompanyService();
+    }
+
+    @Benchmark
+    public SandboxCompanyService createSession() {
+        return new SandboxCompanyService();
+    }
+
+    @Benchmark
+    public Company getCompanyById() {
+        return sandbox.getCompanyById(1L + ThreadLocalRandom.current().nextInt(10));
+    }
+
+    @Benchmark
+    public CompanyPage getPageByName() {
+        return sandbox.getCompanyPage(CompanySort.NAME, null, null, CompanyPage.DEFAULT_SIZE);
+    }
+
+    @Benchmark
+    public List<Company> searchCompanies() {
+        return sandbox.searchCompanies("new", 20);
+    }
+
+    @Benchmark
+    public void updateCompany() {
+        Company company = new Company();
+        company.setId(1L + ThreadLocalRandom.current().nextInt(10));
+        company.setName("Updated Company");
+        company.setLocation("Somewhere, ST");
+        sandbox.updateCompany(company);
+    }
+}
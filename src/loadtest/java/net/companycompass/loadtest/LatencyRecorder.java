@@ -0,0 +1,118 @@
+package net.companycompass.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram fine enough for tail percentiles, in microseconds up to about three weeks.
+ * Values below 128 µs are counted exactly; above, every power of two is split into 128 buckets, so a
+ * reported percentile is within 1% of the recorded value. Recording takes no lock.
+ */
+final class LatencyRecorder {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAGNITUDES = 40 - SUB_BUCKET_BITS + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS * (MAGNITUDES + 1));
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(index(micros));
+        count.increment();
+        sumMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    /**
+     * Adds the latencies recorded by another histogram to this one.
+     */
+    void merge(LatencyRecorder other) {
+        for (int i = 0; i < counts.length(); i++) {
+            long bucketCount = other.counts.get(i);
+            if (bucketCount != 0) {
+                counts.addAndGet(i, bucketCount);
+            }
+        }
+        count.add(other.count.sum());
+        sumMicros.add(other.sumMicros.sum());
+        maxMicros.accumulate(other.maxMicros.get());
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the latency at the given percentile: the largest value of the bucket holding it.
+     *
+     * @param percentile between 0 and 100
+     * @return the latency in microseconds, or zero if nothing was recorded
+     */
+    long percentileMicros(double percentile) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValue(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    /**
+     * Summarizes the recorded latencies in milliseconds: p50, p90, p99, p99.9, max and mean.
+     */
+    Map<String, Double> summaryMillis() {
+        Map<String, Double> summary = new LinkedHashMap<>();
+        summary.put("p50", millis(percentileMicros(50)));
+        summary.put("p90", millis(percentileMicros(90)));
+        summary.put("p99", millis(percentileMicros(99)));
+        summary.put("p999", millis(percentileMicros(99.9)));
+        summary.put("max", millis(maxMicros.get()));
+        long total = count();
+        summary.put("mean", total == 0 ? 0.0 : millis(sumMicros.sum() / total));
+        return summary;
+    }
+
+    private static double millis(long micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    private static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS + 1;
+        if (magnitude > MAGNITUDES) {
+            return SUB_BUCKETS * (MAGNITUDES + 1) - 1;
+        }
+        // The top bit is implied by the magnitude; the next bits pick the bucket within it
+        int subBucket = (int) (micros >>> (magnitude - 1)) - SUB_BUCKETS;
+        return SUB_BUCKETS * magnitude + subBucket;
+    }
+
+    private static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = index / SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (magnitude - 1);
+        return lowest + (1L << (magnitude - 1)) - 1;
+    }
+}
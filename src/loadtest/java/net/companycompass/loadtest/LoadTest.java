@@ -0,0 +1,268 @@
+package net.companycompass.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the application with a scripted {@link Scenario} at a fixed arrival rate and writes a JSON
+ * summary that can be compared between builds, as run by the {@code loadTest} Gradle task.
+ *
+ * <p>The load is an open model: request {@code i} is due at {@code start + i / rate}, whether or not
+ * earlier requests have completed, and is sent from a virtual thread of its own. Its latency is measured
+ * from that due time rather than from when it was actually sent, so a stall of the server or of the
+ * client shows up in the percentiles of every request that should have been sent during it instead of
+ * only in the one request that was waiting (coordinated omission). Requests due in the warm-up period
+ * are sent but not recorded. The operations are drawn from a seeded random sequence and spread over
+ * the sessions in turn, so every run sends the same requests in the same order.
+ *
+ * <p>The summary reports two rates. {@code offeredRate} is the number of measured requests over the
+ * measured period, which is the target rate by construction. {@code throughput} is what the server
+ * achieved: the successful measured requests over the time from the start of the measured period to
+ * the last of them completing, or over the measured period if they all completed within it. A server
+ * that keeps up reports its offered rate less its errors; one that falls behind reports less.
+ *
+ * <p>Settings, as system properties:
+ * <ul>
+ *   <li>{@code loadtest.profile}: the profile the server is started with, {@code local} (default) or {@code demo}</li>
+ *   <li>{@code loadtest.baseUrl}: a running server to test instead of starting one</li>
+ *   <li>{@code loadtest.serverJvmArgs}: space-separated options of the server JVM</li>
+ *   <li>{@code loadtest.scenario}: a preset or a mix, see {@link Scenario} (default {@code mixed})</li>
+ *   <li>{@code loadtest.rate}: requests per second (default 50)</li>
+ *   <li>{@code loadtest.warmupSeconds} and {@code loadtest.durationSeconds}: default 10 and 30</li>
+ *   <li>{@code loadtest.sessions}: the number of browser sessions (default 16)</li>
+ *   <li>{@code loadtest.timeoutSeconds}: the timeout of a request (default 10)</li>
+ *   <li>{@code loadtest.seed}: the seed of the operation sequence (default 42)</li>
+ *   <li>{@code loadtest.outputDir}: where the summary is written (default {@code build/results/loadtest})</li>
+ * </ul>
+ */
+public final class LoadTest {
+    private final Scenario scenario;
+    private final double rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final long seed;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final LongAccumulator maxScheduleLagNanos = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator lastCompletionNanos = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    private long measureStartNanos;
+
+    private LoadTest(Scenario scenario, double rate, Duration warmup, Duration duration, long seed) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("The rate must be positive: " + rate);
+        }
+        this.scenario = scenario;
+        this.rate = rate;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.seed = seed;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String profile = setting("profile", "local");
+        Scenario scenario = Scenario.of(setting("scenario", "mixed"));
+        LoadTest loadTest = new LoadTest(scenario,
+                Double.parseDouble(setting("rate", "50")),
+                Duration.ofSeconds(Long.parseLong(setting("warmupSeconds", "10"))),
+                Duration.ofSeconds(Long.parseLong(setting("durationSeconds", "30"))),
+                Long.parseLong(setting("seed", "42")));
+        int sessionCount = Integer.parseInt(setting("sessions", "16"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(setting("timeoutSeconds", "10")));
+        Path outputDir = Path.of(setting("outputDir", "build/results/loadtest"));
+        String baseUrl = setting("baseUrl", "");
+
+        LoadTestServer server = null;
+        try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            URI baseUri;
+            if (baseUrl.isEmpty()) {
+                List<String> jvmArgs = Arrays.stream(setting("serverJvmArgs", "").split("\\s+"))
+                        .filter(arg -> !arg.isEmpty())
+                        .toList();
+                System.out.println("Starting the server with profile " + profile + "...");
+                server = LoadTestServer.start(profile, jvmArgs, outputDir);
+                baseUri = server.baseUri();
+                System.out.println("Server ready at " + baseUri + ", log in " + server.log());
+            } else {
+                baseUri = URI.create(baseUrl);
+            }
+            List<Session> sessions = new ArrayList<>(sessionCount);
+            for (int i = 0; i < sessionCount; i++) {
+                Session session = new Session(baseUri, timeout, clientExecutor);
+                session.open();
+                sessions.add(session);
+            }
+
+            System.out.printf("Running %s at %.1f requests/s: %s warm-up, %s measured%n",
+                    scenario.name(), loadTest.rate, loadTest.warmup, loadTest.duration);
+            loadTest.run(sessions);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            if (baseUrl.isEmpty()) {
+                summary.put("profile", profile);
+            } else {
+                summary.put("baseUrl", baseUrl);
+            }
+            summary.put("sessions", sessionCount);
+            summary.putAll(loadTest.summary());
+            summary.put("java", Runtime.version().toString());
+            ObjectMapper json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            String fileName = scenario.name().replaceAll("[^A-Za-z0-9]+", "_") + "-"
+                    + (baseUrl.isEmpty() ? profile : "external") + ".json";
+            Path output = outputDir.resolve(fileName);
+            Files.createDirectories(outputDir);
+            json.writeValue(output.toFile(), summary);
+            System.out.println(json.writeValueAsString(summary));
+            System.out.println("Summary written to " + output);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static String setting(String name, String defaultValue) {
+        String value = System.getProperty("loadtest." + name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Sends the requests at the fixed rate until the end of the measured period, then waits for the
+     * outstanding ones to complete or time out.
+     */
+    private void run(List<Session> sessions) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureStart = start + warmup.toNanos();
+        measureStartNanos = measureStart;
+        long end = measureStart + duration.toNanos();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long due = start + (long) (i * intervalNanos);
+                if (due - end >= 0) {
+                    break;
+                }
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = scenario.next(random);
+                Session session = sessions.get((int) (i % sessions.size()));
+                OperationStats recorded = due - measureStart >= 0 ? stats.get(operation) : null;
+                if (recorded != null) {
+                    maxScheduleLagNanos.accumulate(System.nanoTime() - due);
+                }
+                requests.execute(() -> send(operation, session, due, recorded));
+            }
+        }
+    }
+
+    private void send(Operation operation, Session session, long due, OperationStats recorded) {
+        String failure = null;
+        try {
+            int status = operation.perform(session);
+            if (status >= 400) {
+                failure = "status " + status;
+            }
+        } catch (Session.StatusException ex) {
+            failure = "status " + ex.status();
+        } catch (IOException ex) {
+            failure = ex.getClass().getSimpleName();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failure = ex.getClass().getSimpleName();
+        }
+        if (recorded != null) {
+            long completed = System.nanoTime();
+            recorded.record(completed - due, failure);
+            lastCompletionNanos.accumulate(completed);
+        }
+    }
+
+    /**
+     * Summarizes the measured period, overall and per operation. Latencies include failed requests.
+     */
+    private Map<String, Object> summary() {
+        double seconds = duration.toNanos() / 1e9;
+        long last = lastCompletionNanos.get();
+        double elapsedSeconds = last == Long.MIN_VALUE ? seconds : Math.max(seconds, (last - measureStartNanos) / 1e9);
+        LatencyRecorder overall = new LatencyRecorder();
+        long errors = 0;
+        Map<String, Long> errorCauses = new TreeMap<>();
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operation = entry.getValue();
+            long requests = operation.latencies.count();
+            if (requests == 0) {
+                continue;
+            }
+            overall.merge(operation.latencies);
+            errors += operation.errors.sum();
+            operation.errorCauses.forEach((cause, count) -> errorCauses.merge(cause, count.sum(), Long::sum));
+            operations.put(entry.getKey().key(),
+                    describe(requests, operation.errors.sum(), seconds, elapsedSeconds, operation.latencies));
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("scenario", scenario.name());
+        summary.put("mix", scenario.describe());
+        summary.put("targetRate", rate);
+        summary.put("warmupSeconds", warmup.toSeconds());
+        summary.put("durationSeconds", duration.toSeconds());
+        summary.put("elapsedSeconds", Math.round(elapsedSeconds * 100) / 100.0);
+        summary.putAll(describe(overall.count(), errors, seconds, elapsedSeconds, overall));
+        summary.put("errorCauses", errorCauses);
+        summary.put("maxScheduleLagMillis", Math.round(maxScheduleLagNanos.get() / 1e4) / 100.0);
+        summary.put("operations", operations);
+        return summary;
+    }
+
+    private static Map<String, Object> describe(long requests, long errors, double seconds, double elapsedSeconds,
+                                                LatencyRecorder latencies) {
+        Map<String, Object> described = new LinkedHashMap<>();
+        described.put("requests", requests);
+        described.put("errors", errors);
+        described.put("errorRate", requests == 0 ? 0.0 : Math.round(errors * 1e6 / requests) / 1e6);
+        described.put("offeredRate", Math.round(requests * 100 / seconds) / 100.0);
+        described.put("throughput", Math.round((requests - errors) * 100 / elapsedSeconds) / 100.0);
+        described.put("latencyMillis", latencies.summaryMillis());
+        return described;
+    }
+
+    private static final class OperationStats {
+        private final LatencyRecorder latencies = new LatencyRecorder();
+        private final LongAdder errors = new LongAdder();
+        private final Map<String, LongAdder> errorCauses = new ConcurrentHashMap<>();
+
+        void record(long nanos, String failure) {
+            latencies.record(nanos);
+            if (failure != null) {
+                errors.increment();
+                errorCauses.computeIfAbsent(failure, cause -> new LongAdder()).increment();
+            }
+        }
+    }
+}
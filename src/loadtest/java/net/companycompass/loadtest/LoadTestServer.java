@@ -0,0 +1,120 @@
+package net.companycompass.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The application under test, started as {@code CompanyCompassApplication} in a JVM of its own so that
+ * the load generator does not share its heap, JIT and safepoints. It listens on a port chosen by the
+ * operating system, which it reports through {@code server.startup.portFile}, and writes its output to
+ * {@code server.log} in the working directory.
+ */
+final class LoadTestServer implements AutoCloseable {
+    private static final String MAIN_CLASS = "net.companycompass.CompanyCompassApplication";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final Process process;
+    private final Path log;
+    private final URI baseUri;
+
+    private LoadTestServer(Process process, Path log, URI baseUri) {
+        this.process = process;
+        this.log = log;
+        this.baseUri = baseUri;
+    }
+
+    /**
+     * Starts the server on the classpath of this JVM and waits until it serves requests.
+     *
+     * @param profile the Spring profile, {@code local} or {@code demo}
+     * @param jvmArgs further options of the server JVM, e.g. {@code -Xmx512m}
+     * @param workDir the directory for the port file and the server log
+     * @throws IOException if the server does not start in time
+     */
+    static LoadTestServer start(String profile, List<String> jvmArgs, Path workDir) throws IOException, InterruptedException {
+        Files.createDirectories(workDir);
+        Path portFile = workDir.resolve("server.port");
+        Path log = workDir.resolve("server.log");
+        Files.deleteIfExists(portFile);
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-Djava.awt.headless=true");
+        command.add("-Dspring.profiles.active=" + profile);
+        command.add("-Dserver.port=0");
+        command.add("-Dserver.startup.portFile=" + portFile.toAbsolutePath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MAIN_CLASS);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (!Files.exists(portFile)) {
+            if (!process.isAlive()) {
+                throw new IOException("The server exited with " + process.exitValue() + " during startup, see " + log);
+            }
+            if (System.nanoTime() > deadline) {
+                process.destroyForcibly();
+                throw new IOException("The server did not start within " + STARTUP_TIMEOUT + ", see " + log);
+            }
+            Thread.sleep(100);
+        }
+        URI baseUri = URI.create("http://localhost:" + Files.readString(portFile).trim());
+        LoadTestServer server = new LoadTestServer(process, log, baseUri);
+        server.awaitReady(deadline);
+        return server;
+    }
+
+    URI baseUri() {
+        return baseUri;
+    }
+
+    Path log() {
+        return log;
+    }
+
+    private void awaitReady(long deadline) throws IOException, InterruptedException {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/about")).timeout(Duration.ofSeconds(10)).build();
+            while (true) {
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return;
+                    }
+                } catch (IOException ex) {
+                    if (System.nanoTime() > deadline) {
+                        throw ex;
+                    }
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IOException("The server did not answer /about within " + STARTUP_TIMEOUT + ", see " + log);
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    /**
+     * Stops the server through its shutdown hook, forcibly if it has not exited after 30 seconds.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package net.companycompass.loadtest;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The steps a scenario is scripted from, each against a route of {@code CompanyPageController}. The
+ * companies edited and saved are those of the first page when the session started; deletes only
+ * remove companies the load test created, so the data set keeps its size however long the test runs.
+ */
+enum Operation {
+    /** {@code GET /} in one of the sort orders. */
+    LIST {
+        @Override
+        int perform(Session session) throws IOException, InterruptedException {
+            return session.get(LIST_PATHS[session.random().nextInt(LIST_PATHS.length)]);
+        }
+    },
+    /** {@code GET /edit/{id}}. */
+    EDIT {
+        @Override
+        int perform(Session session) throws IOException, InterruptedException {
+            return session.get("/edit/" + session.anyCompanyId());
+        }
+    },
+    /** {@code POST /save} of an existing company without a version, so the latest write wins. */
+    SAVE {
+        @Override
+        int perform(Session session) throws IOException, InterruptedException {
+            int suffix = session.random().nextInt(1000);
+            return session.postForm("/save", "id=" + session.anyCompanyId()
+                    + "&name=Load+Test+Company+" + suffix + "&location=Test+City%2C+ST");
+        }
+    },
+    /**
+     * Creates a company through {@code POST /api/companies}, as the page routes do not return the id of
+     * a new company, and removes it with {@code GET /delete/{id}}; the latency covers both requests.
+     */
+    DELETE {
+        @Override
+        int perform(Session session) throws IOException, InterruptedException {
+            return session.get("/delete/" + session.createCompany("Load Test Deletion", "Test City, ST"));
+        }
+    };
+
+    private static final String[] LIST_PATHS = { "/", "/?sort=name", "/?sort=location" };
+
+    /**
+     * Performs the operation once.
+     *
+     * @param session the session to perform it in
+     * @return the HTTP status of the response; redirects are not followed
+     */
+    abstract int perform(Session session) throws IOException, InterruptedException;
+
+    String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,85 @@
+package net.companycompass.loadtest;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A weighted mix of {@link Operation}s. A scenario is either one of the presets below or a mix given as
+ * {@code list=60,edit=20,save=15,delete=5}; the weights are relative and need not add up to 100.
+ *
+ * <ul>
+ *   <li>{@code browse}: list 80, edit 20, reads only</li>
+ *   <li>{@code mixed}: list 60, edit 20, save 15, delete 5</li>
+ *   <li>{@code write}: list 20, edit 20, save 45, delete 15</li>
+ * </ul>
+ */
+record Scenario(String name, Map<Operation, Integer> weights) {
+    private static final Map<String, String> PRESETS = Map.of(
+            "browse", "list=80,edit=20",
+            "mixed", "list=60,edit=20,save=15,delete=5",
+            "write", "list=20,edit=20,save=45,delete=15");
+
+    Scenario {
+        weights = Map.copyOf(weights);
+    }
+
+    /**
+     * Returns the named preset, or parses the given mix.
+     *
+     * @param nameOrMix a preset name or a mix such as {@code list=50,save=50}
+     * @throws IllegalArgumentException if it is neither
+     */
+    static Scenario of(String nameOrMix) {
+        String mix = PRESETS.getOrDefault(nameOrMix, nameOrMix);
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Not a preset (" + String.join(", ", PRESETS.keySet())
+                        + ") or a mix like list=60,edit=40: " + nameOrMix);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in " + nameOrMix);
+            }
+            weights.merge(Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight, Integer::sum);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("The mix has no weight: " + nameOrMix);
+        }
+        return new Scenario(nameOrMix, weights);
+    }
+
+    /**
+     * Draws the next operation according to the weights.
+     *
+     * @param random the source of randomness; a seeded one gives the same sequence on every run
+     */
+    Operation next(SplittableRandom random) {
+        int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        int draw = random.nextInt(total);
+        for (Operation operation : Operation.values()) {
+            draw -= weights.getOrDefault(operation, 0);
+            if (draw < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("No operation drawn from " + weights);
+    }
+
+    /**
+     * Returns the weights in operation order, keyed by the lower-case operation name.
+     */
+    Map<String, Integer> describe() {
+        Map<String, Integer> described = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            if (weights.getOrDefault(operation, 0) > 0) {
+                described.put(operation.key(), weights.get(operation));
+            }
+        }
+        return described;
+    }
+}
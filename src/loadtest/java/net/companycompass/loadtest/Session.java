@@ -0,0 +1,125 @@
+package net.companycompass.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * One browser session against the server under test: its own cookies, and so its own HTTP session and,
+ * in the demo profile, its own sandbox of companies. Requests are sent with the blocking API from the
+ * caller's virtual thread; redirects are not followed, so a redirect after a save counts as its response.
+ */
+final class Session {
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final URI baseUri;
+    private final Duration timeout;
+    private final HttpClient client;
+    private final List<Long> companyIds = new ArrayList<>();
+
+    /**
+     * @param baseUri  the root of the application, e.g. {@code http://localhost:41234}
+     * @param timeout  how long a request may take before it fails
+     * @param executor the executor of the client's own tasks
+     */
+    Session(URI baseUri, Duration timeout, Executor executor) {
+        this.baseUri = baseUri;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .cookieHandler(new CookieManager())
+                .connectTimeout(timeout)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Opens the session and looks up the companies of the first page, which the edits and saves target.
+     *
+     * @throws IOException if the companies cannot be listed or there are none
+     */
+    void open() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request("/api/companies").build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new StatusException("GET /api/companies", response.statusCode());
+        }
+        for (JsonNode company : JSON.readTree(response.body())) {
+            companyIds.add(company.get("id").asLong());
+        }
+        if (companyIds.isEmpty()) {
+            throw new IOException("There are no companies to edit");
+        }
+    }
+
+    RandomGenerator random() {
+        return ThreadLocalRandom.current();
+    }
+
+    long anyCompanyId() {
+        return companyIds.get(random().nextInt(companyIds.size()));
+    }
+
+    int get(String path) throws IOException, InterruptedException {
+        return client.send(request(path).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    int postForm(String path, String form) throws IOException, InterruptedException {
+        HttpRequest request = request(path)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Creates a company through the REST API.
+     *
+     * @return the id of the new company
+     * @throws StatusException if the company was not created
+     */
+    long createCompany(String name, String location) throws IOException, InterruptedException {
+        String body = JSON.createObjectNode().put("name", name).put("location", location).toString();
+        HttpRequest request = request("/api/companies")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            throw new StatusException("POST /api/companies", response.statusCode());
+        }
+        return JSON.readTree(response.body()).get("id").asLong();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(timeout);
+    }
+
+    /**
+     * A response with a status other than the one a step depends on.
+     */
+    static final class StatusException extends IOException {
+        private final int status;
+
+        StatusException(String request, int status) {
+            super(request + " returned " + status);
+            this.status = status;
+        }
+
+        int status() {
+            return status;
+        }
+    }
+}
@@ -1,39 +1,88 @@
 package net.companycompass;
 
+import net.companycompass.config.AppInitializer;
+import net.companycompass.config.MetricsConfig;
 import net.companycompass.config.SecurityConfig;
+import net.companycompass.config.ServerSettings;
 import net.companycompass.config.WebConfig;
 import net.companycompass.config.db.PersistenceConfig;
+import net.companycompass.config.demo.SessionCountListener;
+import net.companycompass.config.startup.StartupTimeline;
+import jakarta.servlet.FilterRegistration;
 import org.apache.catalina.Context;
 import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Wrapper;
 import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.scan.StandardJarScanner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.aot.AotApplicationContextInitializer;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.context.ConfigurableWebApplicationContext;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.context.support.GenericWebApplicationContext;
 import org.springframework.web.servlet.DispatcherServlet;
 
 import java.awt.Desktop;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
 
 /**
  * The entry point for the embedded Tomcat server.
  * Responsible for bootstrapping the server and loading the Spring Application Context.
+ *
+ * <p>The Spring context is refreshed while Tomcat starts, before the connector accepts requests, and
+ * the time spent in Tomcat, the Spring context, the Flyway migration and the EntityManagerFactory is
+ * logged once the server is ready. Started with {@code -Dspring.aot.enabled=true}, the context is
+ * built from the bean definitions generated ahead of time by {@code ./gradlew jar -Paot} instead of
+ * scanning and parsing the configuration classes.
  */
 public class CompanyCompassApplication {
     private static final Logger logger = LoggerFactory.getLogger(CompanyCompassApplication.class);
-    private static final int PORT = 8080;
+
+    /**
+     * The configuration classes of the Spring context.
+     */
+    public static final Class<?>[] CONFIGURATIONS = {
+            SecurityConfig.class, PersistenceConfig.class, MetricsConfig.class, WebConfig.class };
+
+    /**
+     * The class generated by the AOT processing of the Spring context.
+     */
+    public static final String AOT_INITIALIZER = CompanyCompassApplication.class.getName() + "__ApplicationContextInitializer";
+
+    /**
+     * The classpath resource recording the profiles the AOT processing ran with.
+     */
+    public static final String AOT_PROFILES_RESOURCE = "META-INF/company-compass-aot.properties";
 
     public static void main(String[] args) throws LifecycleException {
+        long startNanos = System.nanoTime();
+        StartupTimeline timeline = new StartupTimeline(Map.of(
+                "schemaMigration", "Flyway migration",
+                "entityManagerFactory", "EntityManagerFactory"));
+        ServerSettings settings = ServerSettings.load();
+        int port = settings.getPort();
+
         Tomcat tomcat = new Tomcat();
-        tomcat.setBaseDir(System.getProperty("java.io.tmpdir") + File.separator + "tomcat." + PORT);
-        tomcat.setPort(PORT);
-        tomcat.getConnector();
+        tomcat.setBaseDir(System.getProperty("java.io.tmpdir") + File.separator + "tomcat." + port);
+        settings.applyTo(tomcat);
 
         String contextPath = System.getenv("APP_CONTEXT_PATH");
         if (contextPath == null || contextPath.isEmpty()) {
             contextPath = "";
         }
-        String appUrl = "http://localhost:" + PORT + contextPath;
+        String appUrl = "http://localhost:" + port + contextPath;
         logger.info("APP CONTEXT PATH: '{}'", appUrl);
 
         File docBase = new File("src/main/webapp");
@@ -42,14 +91,54 @@ public class CompanyCompassApplication {
         }
 
         Context context = tomcat.addWebapp(contextPath, docBase.getAbsolutePath());
+        if (!settings.isJarScanEnabled()) {
+            StandardJarScanner jarScanner = new StandardJarScanner();
+            jarScanner.setScanClassPath(false);
+            jarScanner.setScanManifest(false);
+            context.setJarScanner(jarScanner);
+        }
+        // Session counting, admission control and asset URLs, as AppInitializer sets them up for WAR deployments
+        boolean isDemo = "demo".equalsIgnoreCase(System.getProperty("spring.profiles.active"));
+        context.addServletContainerInitializer((classes, servletContext) -> {
+            servletContext.addListener(new SessionCountListener(isDemo));
+            settings.registerConcurrencyLimit(servletContext);
+            FilterRegistration.Dynamic resourceUrls = servletContext.addFilter("resourceUrlEncodingFilter",
+                    WebConfig.resourceUrlEncodingFilter());
+            resourceUrls.setAsyncSupported(true);
+            resourceUrls.addMappingForUrlPatterns(null, true, "/*");
+        }, null);
 
-        AnnotationConfigWebApplicationContext springContext = new AnnotationConfigWebApplicationContext();
-        springContext.register(SecurityConfig.class, PersistenceConfig.class, WebConfig.class);
+        ConfigurableWebApplicationContext springContext = createApplicationContext();
+        springContext.setApplicationStartup(timeline);
         DispatcherServlet dispatcherServlet = new DispatcherServlet(springContext);
-        Tomcat.addServlet(context, "dispatcherServlet", dispatcherServlet);
+        Wrapper dispatcher = Tomcat.addServlet(context, "dispatcherServlet", dispatcherServlet);
+        dispatcher.setMultipartConfigElement(AppInitializer.multipartConfig());
+        dispatcher.setAsyncSupported(true);
+        // Refresh the Spring context during startup rather than on the first request
+        dispatcher.setLoadOnStartup(1);
         context.addServletMappingDecoded("/*", "dispatcherServlet");
 
         tomcat.start();
+        long startupNanos = System.nanoTime() - startNanos;
+        timeline.record("Tomcat", startNanos, startupNanos - timeline.nanos("Spring context"));
+        logger.info("Server {}", timeline.summary());
+        writePortFile(settings.getPortFile(), tomcat.getConnector().getLocalPort());
+        // Stopping the server destroys the dispatcher servlet, which closes the Spring context so that
+        // beans such as the write-behind queue can finish their work before the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                tomcat.stop();
+                tomcat.destroy();
+            } catch (LifecycleException ex) {
+                logger.error("Failed to stop the server", ex);
+            }
+        }, "shutdown"));
+
+        if (settings.isExitAfterStart()) {
+            warmUp("http://localhost:" + tomcat.getConnector().getLocalPort() + contextPath);
+            logger.info("Exiting after startup as server.startup.exitAfterStart is set");
+            System.exit(0);
+        }
 
         try {
             if (contextPath.isEmpty()) {
@@ -62,4 +151,79 @@ public class CompanyCompassApplication {
         }
         tomcat.getServer().await();
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates the Spring context. When generated artifacts are to be used ({@code spring.aot.enabled}),
+     * the bean definitions come from the initializer generated at build time, provided it was generated
+     * for the active profiles; profiles and conditions are resolved during the AOT processing, so for any
+     * other profile the configuration classes are registered as usual.
+     *
+     * @return the Spring context, not refreshed yet
+     */
+    static ConfigurableWebApplicationContext createApplicationContext() {
+        if (AotDetector.useGeneratedArtifacts()) {
+            String activeProfile = AppInitializer.resolveActiveProfile();
+            String generatedProfiles = generatedProfiles();
+            if (activeProfile.equals(generatedProfiles)) {
+                logger.info("Using the ahead-of-time generated bean definitions");
+                GenericWebApplicationContext springContext = new GenericWebApplicationContext();
+                ApplicationContextInitializer<GenericApplicationContext> initializer =
+                        AotApplicationContextInitializer.forInitializerClasses(AOT_INITIALIZER);
+                initializer.initialize(springContext);
+                return springContext;
+            }
+            logger.warn("The ahead-of-time generated bean definitions are for profile '{}' but '{}' is active; "
+                    + "processing the configuration classes instead", generatedProfiles, activeProfile);
+        }
+        AnnotationConfigWebApplicationContext springContext = new AnnotationConfigWebApplicationContext();
+        springContext.register(CONFIGURATIONS);
+        return springContext;
+    }
+
+    private static String generatedProfiles() {
+        Properties aotProperties = new Properties();
+        try (InputStream input = CompanyCompassApplication.class.getClassLoader().getResourceAsStream(AOT_PROFILES_RESOURCE)) {
+            if (input != null) {
+                aotProperties.load(input);
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not read {}", AOT_PROFILES_RESOURCE);
+        }
+        return aotProperties.getProperty("spring.profiles.active", "");
+    }
+
+    /**
+     * Writes the port the server listens on to the given file, replacing it in one step so that a reader
+     * polling for the file never sees it half written.
+     */
+    private static void writePortFile(Path portFile, int port) {
+        if (portFile == null) {
+            return;
+        }
+        try {
+            Path parent = portFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path written = Files.writeString(Files.createTempFile(parent, "port", ".tmp"), Integer.toString(port));
+            Files.move(written, portFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            logger.warn("Could not write the port to {}: {}", portFile, ex.getMessage());
+        }
+    }
+
+    /**
+     * Requests the main pages once so that the classes serving them are loaded before a training run
+     * exits. Failures are logged and otherwise ignored.
+     */
+    private static void warmUp(String appUrl) {
+        for (String path : new String[] { "/", "/about", "/api/companies" }) {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) URI.create(appUrl + path).toURL().openConnection();
+                connection.getInputStream().readAllBytes();
+                logger.info("Warm-up request {} returned {}", path, connection.getResponseCode());
+                connection.disconnect();
+            } catch (IOException ex) {
+                logger.warn("Warm-up request {} failed: {}", path, ex.getMessage());
+            }
+        }
+    }
+}
@@ -2,10 +2,11 @@ package net.companycompass.config;
 
 import net.companycompass.config.db.PersistenceConfig;
 import net.companycompass.config.demo.SessionCountListener;
-import net.companycompass.config.demo.SessionLimitFilter;
-import jakarta.servlet.FilterRegistration;
+import jakarta.servlet.Filter;
+import jakarta.servlet.MultipartConfigElement;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRegistration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Configuration;
@@ -18,13 +19,26 @@ import java.util.Properties;
 @Configuration
 public class AppInitializer extends AbstractAnnotationConfigDispatcherServletInitializer {
     private static final Logger logger = LoggerFactory.getLogger(AppInitializer.class);
+    private static final int MULTIPART_FILE_SIZE_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Builds the multipart configuration of the dispatcher servlet. Uploads have no size limit so that
+     * large CSV imports are accepted, and any part above 1 MB is written to a temporary file instead
+     * of being held in memory.
+     *
+     * @return the multipart configuration for the dispatcher servlet
+     */
+    public static MultipartConfigElement multipartConfig() {
+        return new MultipartConfigElement(System.getProperty("java.io.tmpdir"), -1, -1, MULTIPART_FILE_SIZE_THRESHOLD);
+    }
 
     /**
      * Configures the servlet context during application startup. Determines the active Spring profile
      * by checking system properties, `application.properties`, or defaults to 'local' if none is specified.
      * It initializes the active profile in the servlet context, adds the necessary listeners, and optionally
      * configures filters based on the profile. Special configuration is applied for the 'demo' profile,
-     * enabling session limits and reduced session timeouts.
+     * enabling reduced session timeouts. Requests in every profile are admitted through the adaptive
+     * concurrency limit configured by the `server.limiter.*` settings.
      *
      * @param servletContext the {@link ServletContext} to be configured during the application startup process
      * @throws ServletException if an error occurs during servlet registration or initialization
@@ -32,42 +46,49 @@ public class AppInitializer extends AbstractAnnotationConfigDispatcherServletIni
     @Override
     public void onStartup(ServletContext servletContext) throws ServletException {
         super.onStartup(servletContext);
-        String activeProfile = "local";
-        String systemProperty = System.getProperty("spring.profiles.active");
-
-        if (systemProperty != null && !systemProperty.isEmpty()) {
-            activeProfile = systemProperty;
-        } else {
-            try (InputStream input = getClass().getClassLoader().getResourceAsStream("application.properties")) {
-                if (input != null) {
-                    Properties prop = new Properties();
-                    prop.load(input);
-                    String fileProperty = prop.getProperty("spring.profiles.active");
-                    if (fileProperty != null && !fileProperty.isEmpty()) {
-                        activeProfile = fileProperty;
-                    }
-                }
-            } catch (IOException ex) {
-                logger.warn("Could not find application.properties. Defaulting to 'local'.");
-            }
-        }
-
+        String activeProfile = resolveActiveProfile();
         logger.info("SELECTED SPRING PROFILE: {}", activeProfile);
         servletContext.setInitParameter("spring.profiles.active", activeProfile);
 
         boolean isDemo = "demo".equalsIgnoreCase(activeProfile);
         servletContext.addListener(new SessionCountListener(isDemo));
         if (isDemo) {
-            logger.info("### DEMO MODE: MAX 3 USERS & 30 SECONDS TIMEOUT ENABLED ###");
-            FilterRegistration.Dynamic limitFilter = servletContext.addFilter("sessionLimitFilter", new SessionLimitFilter());
-            limitFilter.addMappingForUrlPatterns(null, false, "/*");
+            logger.info("### DEMO MODE: 15 SECONDS SESSION TIMEOUT ENABLED ###");
+        }
+        ServerSettings.load().registerConcurrencyLimit(servletContext);
+    }
+
+    /**
+     * Determines the active Spring profile: the {@code spring.profiles.active} system property, else the
+     * property of the same name in {@code application.properties}, else 'local'.
+     *
+     * @return the active profile
+     */
+    public static String resolveActiveProfile() {
+        Properties prop = new Properties();
+        try (InputStream input = AppInitializer.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if (input != null) {
+                prop.load(input);
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not find application.properties. Defaulting to 'local'.");
+        }
+
+        String activeProfile = "local";
+        String systemProperty = System.getProperty("spring.profiles.active");
+        String fileProperty = prop.getProperty("spring.profiles.active");
+        if (systemProperty != null && !systemProperty.isEmpty()) {
+            activeProfile = systemProperty;
+        } else if (fileProperty != null && !fileProperty.isEmpty()) {
+            activeProfile = fileProperty;
         }
+        return activeProfile;
     }
 
     @Override
     protected Class<?>[] getRootConfigClasses() {
-        // Load Security and Database configs
-        return new Class[] { SecurityConfig.class, PersistenceConfig.class };
+        // Load Security, Database and Metrics configs
+        return new Class[] { SecurityConfig.class, PersistenceConfig.class, MetricsConfig.class };
     }
 
     @Override
@@ -76,6 +97,16 @@ public class AppInitializer extends AbstractAnnotationConfigDispatcherServletIni
         return new Class[] { WebConfig.class };
     }
 
+    @Override
+    protected Filter[] getServletFilters() {
+        return new Filter[] { WebConfig.resourceUrlEncodingFilter() };
+    }
+
+    @Override
+    protected void customizeRegistration(ServletRegistration.Dynamic registration) {
+        registration.setMultipartConfig(multipartConfig());
+    }
+
     @NonNull
     protected String[] getServletMappings() {
         return new String[] { "/" };
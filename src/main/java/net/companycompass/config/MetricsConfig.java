@@ -0,0 +1,30 @@
+package net.companycompass.config;
+
+import net.companycompass.metrics.MetricsRegistry;
+import net.companycompass.metrics.ServiceTimingPostProcessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MetricsConfig registers the metrics registry, the collectors read at scrape time and the
+ * timing of {@link net.companycompass.service.CompanyService} calls. The metrics are served in the
+ * Prometheus text format by {@link net.companycompass.controller.MetricsController}.
+ */
+@Configuration
+@ComponentScan("net.companycompass.metrics")
+public class MetricsConfig {
+    /**
+     * Creates the post-processor that times the service layer. It is static so that it can be
+     * registered before the services are created, and it resolves the registry only when the first
+     * service is wrapped.
+     *
+     * @param registry a lazy handle on the {@link MetricsRegistry}
+     * @return the service timing post-processor
+     */
+    @Bean
+    public static ServiceTimingPostProcessor serviceTimingPostProcessor(ObjectProvider<MetricsRegistry> registry) {
+        return new ServiceTimingPostProcessor(registry);
+    }
+}
@@ -46,7 +46,7 @@ public class SecurityConfig {
         http
                 .authorizeHttpRequests((requests) -> requests
                         .requestMatchers("/css/**", "/js/**", "/images/**").permitAll()
-                        .requestMatchers("/", "/add", "/save", "/edit/**", "/delete/**").permitAll()
+                        .requestMatchers("/", "/add", "/save", "/edit/**", "/delete/**", "/search", "/import", "/export/**", "/api/**", "/metrics", "/metrics/**").permitAll()
                         .anyRequest().authenticated()
                 )
                 .csrf(AbstractHttpConfigurer::disable);
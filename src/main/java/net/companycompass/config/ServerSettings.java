@@ -0,0 +1,228 @@
+package net.companycompass.config;
+
+import jakarta.servlet.FilterRegistration;
+import jakarta.servlet.ServletContext;
+import net.companycompass.config.limit.AdaptiveConcurrencyLimiter;
+import net.companycompass.config.limit.ConcurrencyLimitFilter;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.core.StandardVirtualThreadExecutor;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Connector, threading and admission control settings of the server. The server is built before the Spring
+ * context exists, so the {@code server.*} keys are read directly from {@code application.properties},
+ * and any of them can be overridden with a system property of the same name.
+ *
+ * <p>In {@link ThreadMode#VIRTUAL} mode every request is processed on its own virtual thread, so a
+ * request blocked on JDBC no longer holds one of a fixed number of worker threads. Concurrency is then
+ * bounded by {@code server.maxConnections} and, for database work, by the connection pool.
+ *
+ * <p>The connector also accepts cleartext HTTP/2 and compresses HTML and JSON responses with gzip, see
+ * {@link #isHttp2Enabled()} and {@link #isCompressionEnabled()}.
+ */
+public final class ServerSettings {
+    private static final Logger logger = LoggerFactory.getLogger(ServerSettings.class);
+    private static final String PREFIX = "server.";
+    private static final String DEFAULT_COMPRESSIBLE_TYPES = "text/html,application/json,application/problem+json";
+
+    /**
+     * How the connector runs request processing.
+     */
+    public enum ThreadMode {
+        /** A bounded pool of {@code server.maxThreads} platform threads, the Tomcat default. */
+        PLATFORM,
+        /** One virtual thread per request. */
+        VIRTUAL
+    }
+
+    private final Properties properties;
+
+    private ServerSettings(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Loads the server settings from {@code application.properties} on the classpath.
+     *
+     * @return the loaded settings; defaults apply to any key that is not set
+     */
+    public static ServerSettings load() {
+        Properties properties = new Properties();
+        try (InputStream input = ServerSettings.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not read application.properties. Using default server settings.");
+        }
+        return new ServerSettings(properties);
+    }
+
+    /**
+     * Returns whether the connector also speaks cleartext HTTP/2 (h2c), which lets a client multiplex its
+     * requests over one connection. It is on unless {@code server.http2.enabled} is false.
+     */
+    public boolean isHttp2Enabled() {
+        return Boolean.parseBoolean(get("http2.enabled", "true"));
+    }
+
+    /**
+     * Returns whether responses are gzip-compressed on the fly for clients that accept it. Only responses of
+     * the {@code server.compression.mimeTypes} of at least {@code server.compression.minSize} bytes are
+     * compressed, and responses that already have a content encoding, such as the precompressed static
+     * assets, are left alone. Tomcat also leaves responses with a strong ETag uncompressed, since their
+     * bytes would no longer match the tag, which is why the JSON API tags its listing with a weak ETag. It
+     * is on unless {@code server.compression.enabled} is false.
+     */
+    public boolean isCompressionEnabled() {
+        return Boolean.parseBoolean(get("compression.enabled", "true"));
+    }
+
+    public int getPort() {
+        return getInt("port", 8080);
+    }
+
+    public ThreadMode getThreadMode() {
+        return ThreadMode.valueOf(get("threads", "virtual").toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the connector protocol class for the configured {@code server.protocol}, either {@code nio}
+     * or {@code nio2}.
+     */
+    public String getProtocol() {
+        return switch (get("protocol", "nio").toLowerCase(Locale.ROOT)) {
+            case "nio" -> "org.apache.coyote.http11.Http11NioProtocol";
+            case "nio2" -> "org.apache.coyote.http11.Http11Nio2Protocol";
+            default -> throw new IllegalArgumentException("Unsupported server.protocol: " + get("protocol", ""));
+        };
+    }
+
+    /**
+     * Creates the HTTP connector described by these settings and installs it on the given server,
+     * including the virtual thread executor when that mode is selected.
+     *
+     * @param tomcat the embedded server that has not been started yet
+     * @return the configured connector
+     */
+    public Connector applyTo(Tomcat tomcat) {
+        Connector connector = new Connector(getProtocol());
+        connector.setPort(getPort());
+
+        ProtocolHandler handler = connector.getProtocolHandler();
+        if (handler instanceof AbstractProtocol<?> protocol) {
+            protocol.setMaxConnections(getInt("maxConnections", 8192));
+            protocol.setAcceptCount(getInt("acceptCount", 100));
+            protocol.setKeepAliveTimeout(getInt("keepAliveTimeoutMillis", 20000));
+            protocol.setMaxThreads(getInt("maxThreads", 200));
+        }
+        if (handler instanceof AbstractHttp11Protocol<?> http) {
+            http.setMaxKeepAliveRequests(getInt("maxKeepAliveRequests", 100));
+            if (isCompressionEnabled()) {
+                http.setCompression("on");
+                http.setCompressionMinSize(getInt("compression.minSize", 2048));
+                http.setCompressibleMimeType(get("compression.mimeTypes", DEFAULT_COMPRESSIBLE_TYPES));
+            } else {
+                http.setCompression("off");
+            }
+        }
+        if (isHttp2Enabled()) {
+            // Cleartext HTTP/2 (h2c), by upgrade or with prior knowledge; it uses the compression settings above
+            Http2Protocol http2 = new Http2Protocol();
+            http2.setMaxConcurrentStreams(getInt("http2.maxConcurrentStreams", 100));
+            http2.setKeepAliveTimeout(getInt("keepAliveTimeoutMillis", 20000));
+            connector.addUpgradeProtocol(http2);
+        }
+
+        if (getThreadMode() == ThreadMode.VIRTUAL) {
+            StandardVirtualThreadExecutor executor = new StandardVirtualThreadExecutor();
+            executor.setName("virtualThreadExecutor");
+            executor.setNamePrefix("http-vt-");
+            tomcat.getService().addExecutor(executor);
+            handler.setExecutor(executor);
+        }
+
+        tomcat.getService().addConnector(connector);
+        tomcat.setConnector(connector);
+        logger.info("HTTP connector: port={}, protocol={}, threads={}, http2={}, compression={}", getPort(),
+                get("protocol", "nio"), getThreadMode(), isHttp2Enabled(), isCompressionEnabled());
+        return connector;
+    }
+
+    /**
+     * Returns whether Tomcat scans the jars on the classpath for TLDs, web fragments and annotated
+     * servlet container initializers. The embedded server registers everything it needs itself, and in
+     * the single application jar the scan would read every class, so it is off unless
+     * {@code server.startup.scanJars} is true.
+     */
+    public boolean isJarScanEnabled() {
+        return Boolean.parseBoolean(get("startup.scanJars", "false"));
+    }
+
+    /**
+     * Returns whether the server stops and the JVM exits once it has started and served a few warm-up
+     * requests. Such a training run records the classes a real start loads, e.g. into a class-data-sharing
+     * archive with {@code -XX:ArchiveClassesAtExit}.
+     */
+    public boolean isExitAfterStart() {
+        return Boolean.parseBoolean(get("startup.exitAfterStart", "false"));
+    }
+
+    /**
+     * Returns the file the server writes its port number to once it accepts requests, given by
+     * {@code server.startup.portFile}, or null if none is to be written. With {@code server.port=0} the
+     * port is chosen by the operating system, so a process that starts the server, such as the load test,
+     * learns it from this file.
+     */
+    public Path getPortFile() {
+        String portFile = get("startup.portFile", "");
+        return portFile.isEmpty() ? null : Path.of(portFile);
+    }
+
+    /**
+     * Installs the adaptive admission control described by the {@code server.limiter.*} settings in
+     * front of every request of the given context, unless {@code server.limiter.enabled} is false.
+     * The limiter is also published as the servlet context attribute
+     * {@link ConcurrencyLimitFilter#LIMITER_ATTRIBUTE}.
+     *
+     * @param servletContext the context being started
+     */
+    public void registerConcurrencyLimit(ServletContext servletContext) {
+        if (!Boolean.parseBoolean(get("limiter.enabled", "true"))) {
+            return;
+        }
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                getInt("limiter.initialLimit", 20),
+                getInt("limiter.minLimit", 4),
+                getInt("limiter.maxLimit", 1000),
+                getInt("limiter.maxQueue", 100),
+                getInt("limiter.maxWaitMillis", 500),
+                Double.parseDouble(get("limiter.clientShare", "0.5")));
+        servletContext.setAttribute(ConcurrencyLimitFilter.LIMITER_ATTRIBUTE, limiter);
+        FilterRegistration.Dynamic filter = servletContext.addFilter("concurrencyLimitFilter", new ConcurrencyLimitFilter(limiter));
+        filter.setAsyncSupported(true);
+        filter.addMappingForUrlPatterns(null, false, "/*");
+        logger.info("Adaptive concurrency limit enabled, initial limit {}", limiter.getLimit());
+    }
+
+    private String get(String key, String defaultValue) {
+        String value = System.getProperty(PREFIX + key, properties.getProperty(PREFIX + key));
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    private int getInt(String key, int defaultValue) {
+        return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+    }
+}
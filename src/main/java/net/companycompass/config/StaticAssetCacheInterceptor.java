@@ -0,0 +1,69 @@
+package net.companycompass.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+import org.springframework.web.servlet.resource.VersionStrategy;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.time.Duration;
+
+/**
+ * Sets the {@code Cache-Control} header of static assets according to their URL.
+ *
+ * <p>An asset requested under its current content-hashed URL, e.g. {@code /css/company-<hash>.css} as
+ * written into the pages, never changes and is cached for a year as immutable. Any other asset URL,
+ * including a plain {@code /css/company.css} or a hash the running version does not serve (during a
+ * rolling deployment, say), must be revalidated on every use, so a stale or missing asset is not cached
+ * for a year by browsers and proxies. Every asset response varies by {@code Accept-Encoding}, as the
+ * precompressed variants are chosen by it.
+ */
+public class StaticAssetCacheInterceptor implements HandlerInterceptor {
+    private static final String IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue();
+    private static final String REVALIDATE = CacheControl.noCache().cachePublic().getHeaderValue();
+
+    private final VersionStrategy versionStrategy;
+    private volatile ResourceUrlProvider resourceUrlProvider;
+
+    /**
+     * @param versionStrategy the strategy that puts the content hash into the asset URLs
+     */
+    public StaticAssetCacheInterceptor(VersionStrategy versionStrategy) {
+        this.versionStrategy = versionStrategy;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof ResourceHttpRequestHandler) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, isCurrentVersion(request) ? IMMUTABLE : REVALIDATE);
+            // Compressed variants already carry it; an uncompressed response must not be shared with clients
+            // that could have had a compressed one
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        return true;
+    }
+
+    private boolean isCurrentVersion(HttpServletRequest request) {
+        String path = ServletRequestPathUtils.getCachedPathValue(request);
+        String version = versionStrategy.extractVersion(path);
+        if (version == null) {
+            return false;
+        }
+        String currentPath = urlProvider(request).getForLookupPath(versionStrategy.removeVersion(path, version));
+        return path.equals(currentPath);
+    }
+
+    private ResourceUrlProvider urlProvider(HttpServletRequest request) {
+        ResourceUrlProvider provider = resourceUrlProvider;
+        if (provider == null) {
+            provider = RequestContextUtils.findWebApplicationContext(request).getBean(ResourceUrlProvider.class);
+            resourceUrlProvider = provider;
+        }
+        return provider;
+    }
+}
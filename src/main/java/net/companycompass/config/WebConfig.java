@@ -1,11 +1,26 @@
 package net.companycompass.config;
 
+import net.companycompass.config.db.SqlProfiler;
+import net.companycompass.config.db.SqlProfilingInterceptor;
+import net.companycompass.metrics.RequestMetricsInterceptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.ContentVersionStrategy;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
 import org.thymeleaf.spring6.view.ThymeleafViewResolver;
@@ -19,16 +34,36 @@ import org.thymeleaf.templatemode.TemplateMode;
  * The primary responsibilities of this class are:
  * - Configuring Thymeleaf template resolution and rendering.
  * - Setting up a view resolver for processing Thymeleaf templates.
- * - Defining resource handlers for serving static resources.
+ * - Defining resource handlers for serving static resources under content-hashed, precompressed and
+ *   long-cached URLs.
+ * - Resolving multipart file uploads.
+ * - Running asynchronous request handling on virtual threads when {@code server.threads=virtual}.
+ * - Recording the latency of every handler for the metrics endpoint.
+ * - Attributing SQL statements to the request that ran them, for the SQL profiler.
  */
 @Configuration
 @EnableWebMvc
 @ComponentScan("net.companycompass.controller")
 public class WebConfig implements WebMvcConfigurer {
+    private static final ContentVersionStrategy ASSET_VERSIONS = new ContentVersionStrategy();
+
+    private final Environment environment;
+    private final RequestMetricsInterceptor requestMetricsInterceptor;
+    private final SqlProfiler sqlProfiler;
+
+    public WebConfig(Environment environment, RequestMetricsInterceptor requestMetricsInterceptor,
+                     SqlProfiler sqlProfiler) {
+        this.environment = environment;
+        this.requestMetricsInterceptor = requestMetricsInterceptor;
+        this.sqlProfiler = sqlProfiler;
+    }
+
     /**
      * Configures and provides a {@link SpringResourceTemplateResolver} bean for resolving Thymeleaf templates.
      * This resolver is pre-configured with a template location prefix, suffix, and template mode to
      * work with HTML files stored in the `/templates/` directory on the classpath.
+     * Parsed templates are cached for {@code templates.cacheTtlMillis} unless {@code templates.cacheable}
+     * is false, which is useful while editing templates of a running application.
      *
      * @return an instance of {@link SpringResourceTemplateResolver} configured to resolve HTML templates.
      */
@@ -39,7 +74,8 @@ public class WebConfig implements WebMvcConfigurer {
         resolver.setSuffix(".html");
         resolver.setTemplateMode(TemplateMode.HTML);
         resolver.setCharacterEncoding("UTF-8");
-        resolver.setCacheable(false);
+        resolver.setCacheable(environment.getProperty("templates.cacheable", Boolean.class, true));
+        resolver.setCacheTTLMs(environment.getProperty("templates.cacheTtlMillis", Long.class, 3_600_000L));
         return resolver;
     }
 
@@ -77,20 +113,79 @@ public class WebConfig implements WebMvcConfigurer {
         return resolver;
     }
 
+    /**
+     * Provides the {@link MultipartResolver} used for file uploads such as the CSV import.
+     * Parsing is delegated to the servlet container, which spools large parts to disk according
+     * to the multipart configuration of the dispatcher servlet.
+     *
+     * @return a {@link StandardServletMultipartResolver} instance
+     */
+    @Bean
+    public MultipartResolver multipartResolver() {
+        return new StandardServletMultipartResolver();
+    }
+
+    /**
+     * Provides the executor for asynchronous MVC handlers such as {@code Callable} return values.
+     * It creates a virtual thread per task when {@code server.threads} is {@code virtual}, matching
+     * the request threads of the embedded connector, and a new platform thread per task otherwise.
+     *
+     * @return the {@link AsyncTaskExecutor} used by Spring MVC async request processing
+     */
+    @Bean
+    public AsyncTaskExecutor mvcTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+        executor.setVirtualThreads("virtual".equalsIgnoreCase(environment.getProperty("server.threads", "virtual")));
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcTaskExecutor());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestMetricsInterceptor);
+        registry.addInterceptor(new SqlProfilingInterceptor(sqlProfiler));
+        registry.addInterceptor(new StaticAssetCacheInterceptor(ASSET_VERSIONS));
+    }
+
     /**
      * Configures resource handlers to serve static resources such as CSS, JavaScript, and other files
      * from specific locations in the classpath. This method maps specific URL patterns to their
      * corresponding resource locations.
      *
+     * <p>Every asset is served through a resource chain that adds a hash of its content to its URL, e.g.
+     * {@code /css/company-<hash>.css}; links built in templates with {@code @{...}} are rewritten to these
+     * URLs by the {@link #resourceUrlEncodingFilter()}. A client that accepts Brotli or gzip gets the
+     * {@code .br} or {@code .gz} variant the build wrote next to the asset. The
+     * {@link StaticAssetCacheInterceptor} lets hashed URLs be cached for a year.
+     *
      * @param registry the {@link ResourceHandlerRegistry} used to register resource handlers.
      */
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/css/**")
-                .addResourceLocations("classpath:/static/css/", "classpath:/css/");
-        registry.addResourceHandler("/js/**")
-                .addResourceLocations("classpath:/static/js/", "classpath:/js/");
-        registry.addResourceHandler("/static/**")
-                .addResourceLocations("classpath:/static/");
+        ResourceHandlerRegistration[] registrations = {
+                registry.addResourceHandler("/css/**").addResourceLocations("classpath:/static/css/", "classpath:/css/"),
+                registry.addResourceHandler("/js/**").addResourceLocations("classpath:/static/js/", "classpath:/js/"),
+                registry.addResourceHandler("/static/**").addResourceLocations("classpath:/static/")
+        };
+        for (ResourceHandlerRegistration registration : registrations) {
+            registration.resourceChain(true)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addVersionStrategy(ASSET_VERSIONS, "/**"));
+        }
+    }
+
+    /**
+     * Provides the filter that rewrites the asset URLs of rendered pages to their content-hashed form.
+     * It is registered in front of the dispatcher servlet by {@link net.companycompass.CompanyCompassApplication}
+     * and {@link AppInitializer}.
+     *
+     * @return a new {@link ResourceUrlEncodingFilter}
+     */
+    public static ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
     }
 }
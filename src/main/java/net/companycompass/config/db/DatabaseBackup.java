@@ -0,0 +1,92 @@
+package net.companycompass.config.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes online backups of a file-backed H2 database with its {@code BACKUP TO} statement, exported as the
+ * JMX operation {@code backup} of {@code net.companycompass:type=DatabaseBackup}. The MVStore keeps the
+ * pages being copied from being overwritten while the backup runs, so reads and writes carry on; the
+ * result is a zip archive of a consistent database file, which is restored by unpacking it into
+ * {@code db.dir} while the application is stopped.
+ */
+@ManagedResource(objectName = "net.companycompass:type=DatabaseBackup",
+        description = "Online backups of the file-backed database")
+public class DatabaseBackup {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseBackup.class);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final DataSource dataSource;
+    private final String url;
+    private final Path directory;
+    private volatile String lastBackupFile = "";
+    private volatile long lastBackupMillis;
+
+    /**
+     * @param dataSource the database to back up
+     * @param url        its JDBC URL; only {@code jdbc:h2:file:} databases can be backed up
+     * @param directory  the directory the archives are written to
+     */
+    public DatabaseBackup(DataSource dataSource, String url, Path directory) {
+        this.dataSource = dataSource;
+        this.url = url;
+        this.directory = directory;
+    }
+
+    /**
+     * Writes a backup to a new, timestamped archive in the backup directory. Only one backup runs at a
+     * time.
+     *
+     * @return the path of the archive
+     * @throws IllegalStateException if the database is not a file-backed H2 database or the backup fails
+     */
+    @ManagedOperation(description = "Back up the database to a new archive in the backup directory and return its path")
+    public synchronized String backup() {
+        if (!url.startsWith("jdbc:h2:file:")) {
+            throw new IllegalStateException("Only a file-backed H2 database can be backed up, not " + url);
+        }
+        Path archive = directory.resolve("companycompass-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".zip")
+                .toAbsolutePath().normalize();
+        long startNanos = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("BACKUP TO '" + archive.toString().replace("'", "''") + "'");
+            }
+            lastBackupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            lastBackupFile = archive.toString();
+            logger.info("Database backed up to {} ({} bytes) in {} ms", archive, Files.size(archive), lastBackupMillis);
+            return lastBackupFile;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write the backup " + archive, ex);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("The backup to " + archive + " failed: " + ex.getMessage(), ex);
+        }
+    }
+
+    @ManagedAttribute(description = "Path of the last backup written since startup, empty if none")
+    public String getLastBackupFile() {
+        return lastBackupFile;
+    }
+
+    @ManagedAttribute(description = "Time the last backup took, in milliseconds")
+    public long getLastBackupMillis() {
+        return lastBackupMillis;
+    }
+}
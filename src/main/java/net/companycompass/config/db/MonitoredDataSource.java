@@ -0,0 +1,142 @@
+package net.companycompass.config.db;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link javax.sql.DataSource} wrapper around the Tomcat JDBC connection pool that records how long
+ * callers wait to acquire a connection and publishes the pool's usage statistics as a JMX MBean
+ * ({@code net.companycompass:type=ConnectionPool}), so the pool can be sized from observed data.
+ */
+@ManagedResource(objectName = "net.companycompass:type=ConnectionPool",
+        description = "JDBC connection pool usage and acquisition wait times")
+public class MonitoredDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final org.apache.tomcat.jdbc.pool.DataSource pool;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquisitionFailures = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public MonitoredDataSource(org.apache.tomcat.jdbc.pool.DataSource pool) {
+        this(pool, pool);
+    }
+
+    /**
+     * Creates a data source that reports on the given pool but obtains connections through another
+     * data source wrapping it, such as a {@link ProfilingDataSource}.
+     *
+     * @param pool        the pool whose statistics are published
+     * @param connections the data source connections are obtained from
+     */
+    public MonitoredDataSource(org.apache.tomcat.jdbc.pool.DataSource pool, javax.sql.DataSource connections) {
+        super(connections);
+        this.pool = pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = super.getConnection();
+            recordWait(System.nanoTime() - start);
+            return connection;
+        } catch (SQLException ex) {
+            acquisitionFailures.increment();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = super.getConnection(username, password);
+            recordWait(System.nanoTime() - start);
+            return connection;
+        } catch (SQLException ex) {
+            acquisitionFailures.increment();
+            throw ex;
+        }
+    }
+
+    private void recordWait(long nanos) {
+        acquisitions.increment();
+        totalWaitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Closes the underlying pool and all of its physical connections.
+     */
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    @ManagedAttribute(description = "Connections currently borrowed from the pool")
+    public int getActive() {
+        return pool.getActive();
+    }
+
+    @ManagedAttribute(description = "Connections currently idle in the pool")
+    public int getIdle() {
+        return pool.getIdle();
+    }
+
+    @ManagedAttribute(description = "Open physical connections, active and idle")
+    public int getSize() {
+        return pool.getSize();
+    }
+
+    @ManagedAttribute(description = "Maximum number of connections the pool will open")
+    public int getMaxActive() {
+        return pool.getMaxActive();
+    }
+
+    @ManagedAttribute(description = "Threads currently blocked waiting for a connection")
+    public int getWaiting() {
+        return pool.getWaitCount();
+    }
+
+    @ManagedAttribute(description = "Successful connection acquisitions since startup")
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    @ManagedAttribute(description = "Acquisitions that failed, e.g. because the wait timed out")
+    public long getAcquisitionFailures() {
+        return acquisitionFailures.sum();
+    }
+
+    @ManagedAttribute(description = "Total time spent acquiring connections, in milliseconds")
+    public double getTotalWaitMillis() {
+        return totalWaitNanos.sum() / 1_000_000.0;
+    }
+
+    @ManagedAttribute(description = "Mean time to acquire a connection, in milliseconds")
+    public double getAverageWaitMillis() {
+        long count = acquisitions.sum();
+        return count == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / count;
+    }
+
+    @ManagedAttribute(description = "Longest time any caller waited for a connection, in milliseconds")
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    @ManagedAttribute(description = "Physical connections opened since startup")
+    public long getCreated() {
+        return pool.getCreatedCount();
+    }
+
+    @ManagedAttribute(description = "Idle connections closed by the evictor since startup")
+    public long getEvicted() {
+        return pool.getReleasedIdleCount();
+    }
+}
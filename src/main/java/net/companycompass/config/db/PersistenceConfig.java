@@ -1,32 +1,38 @@
 package net.companycompass.config.db;
 
 import jakarta.persistence.EntityManagerFactory;
-import org.flywaydb.core.Flyway;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypesScanner;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.nio.file.Path;
 import java.util.Properties;
 
 /**
  * Configuration class for persistence layer components in the application. This class is annotated
  * with Spring's configuration-related annotations for enabling features such as transaction management
- * and JPA repositories. The class also loads database-specific properties and defines several beans
+ * and JPA repositories. The class also loads the application and database-specific properties and defines several beans
  * related to database connectivity, JPA, and transaction management.
  */
 @Configuration
 @EnableTransactionManagement
+@EnableMBeanExport
 @EnableJpaRepositories("net.companycompass.repository")
-@PropertySource("classpath:db-${env:local}.properties")
+@PropertySource({"classpath:application.properties", "classpath:db-${env:local}.properties"})
 @ComponentScan("net.companycompass.service")
 public class PersistenceConfig {
+    private static final String MIGRATIONS = "classpath:db/migration";
+
     /**
      * The name of the database driver class to be used for establishing a database connection.
      * Populated from the external property "db.driver" defined in the application properties file.
@@ -60,57 +66,238 @@ public class PersistenceConfig {
     private String password;
 
     /**
-     * Configures and initializes a Flyway instance responsible for managing
-     * database versioning and migrations. The method sets up the data source,
-     * specifies the locations of migration scripts, and executes any pending migrations.
+     * Sizing of the connection pool: connections opened at startup, the number kept open while idle,
+     * and the upper bound on open connections. Populated from the "db.pool.*" properties.
+     */
+    @Value("${db.pool.initialSize:2}")
+    private int poolInitialSize;
+
+    @Value("${db.pool.minIdle:2}")
+    private int poolMinIdle;
+
+    @Value("${db.pool.maxActive:10}")
+    private int poolMaxActive;
+
+    /**
+     * The longest time, in milliseconds, a caller waits for a free connection before
+     * the acquisition fails.
+     */
+    @Value("${db.pool.maxWaitMillis:5000}")
+    private int poolMaxWaitMillis;
+
+    /**
+     * Idle eviction: how often the evictor runs and how long a connection above the
+     * minimum idle count may sit unused before it is closed, in milliseconds.
+     */
+    @Value("${db.pool.evictionIntervalMillis:30000}")
+    private int poolEvictionIntervalMillis;
+
+    @Value("${db.pool.minEvictableIdleMillis:60000}")
+    private int poolMinEvictableIdleMillis;
+
+    /**
+     * Validation on borrow: the query used to check a connection, and the interval, in milliseconds,
+     * within which a connection that was already validated is handed out without re-checking.
+     */
+    @Value("${db.pool.validationQuery:SELECT 1}")
+    private String poolValidationQuery;
+
+    @Value("${db.pool.validationIntervalMillis:30000}")
+    private long poolValidationIntervalMillis;
+
+    /**
+     * Seconds a connection may be held before it is reported as a suspected leak, together with
+     * the stack trace of the code that borrowed it. Zero disables leak detection.
+     */
+    @Value("${db.pool.leakDetectionSeconds:60}")
+    private int poolLeakDetectionSeconds;
+
+    /**
+     * The maximum number of prepared statements kept open by the pool's statement cache.
+     * Zero disables the cache.
+     */
+    @Value("${db.pool.statementCacheSize:50}")
+    private int poolStatementCacheSize;
+
+    /**
+     * The number of inserts and updates Hibernate groups into a single JDBC batch.
+     */
+    @Value("${db.jdbc.batchSize:50}")
+    private int jdbcBatchSize;
+
+    /**
+     * The number of rows the JDBC driver fetches per round trip when reading a result set. Individual
+     * queries, such as the export cursor, may override it with a fetch size hint.
+     */
+    @Value("${db.jdbc.fetchSize:100}")
+    private int jdbcFetchSize;
+
+    /**
+     * What Hibernate does with the schema at startup. Flyway owns the schema, so the default is "none",
+     * which skips reading the database metadata; "validate" checks the mappings against the migrated schema.
+     */
+    @Value("${db.hibernate.ddlAuto:none}")
+    private String ddlAuto;
+
+    /**
+     * Whether Flyway is skipped at startup when the schema history already lists every migration script
+     * with its current checksum. Only worth it for a persistent database, which is migrated on its first
+     * start only.
+     */
+    @Value("${db.migration.skipWhenCurrent:false}")
+    private boolean skipCurrentMigrations;
+
+    /**
+     * The directory the online backups of a file-backed database are written to.
+     */
+    @Value("${db.backup.dir:backups}")
+    private String backupDir;
+
+    /**
+     * SQL profiling: whether statements are profiled at all, the execution time above which a statement
+     * is logged as slow, the number of executions of one statement shape within a request that is
+     * logged as a likely N+1 query, and the number of distinct shapes kept.
+     */
+    @Value("${db.profiler.enabled:true}")
+    private boolean profilerEnabled;
+
+    @Value("${db.profiler.slowQueryMillis:100}")
+    private long profilerSlowQueryMillis;
+
+    @Value("${db.profiler.repeatThreshold:10}")
+    private int profilerRepeatThreshold;
+
+    @Value("${db.profiler.maxShapes:500}")
+    private int profilerMaxShapes;
+
+    /**
+     * Applies the pending Flyway migrations from "classpath:db/migration" before the EntityManagerFactory
+     * is created. With "db.migration.skipWhenCurrent", a database whose schema history already matches
+     * the scripts is left alone without loading Flyway, see {@link SchemaMigration}.
      *
-     * @return a fully configured Flyway instance with migrations applied
+     * @return the outcome of the migration
      */
     @Bean
-    public Flyway flyway() {
-        Flyway flyway = Flyway.configure()
-                .dataSource(dataSource())
-                .locations("classpath:db/migration")
-                .load();
-        flyway.migrate();
-        return flyway;
+    public SchemaMigration schemaMigration() {
+        return SchemaMigration.migrate(dataSource(), MIGRATIONS, skipCurrentMigrations);
     }
 
     /**
-     * Configures and provides a DataSource bean for interacting with the database.
-     * This method sets up the data source with the specified driver, URL, username,
-     * and password, enabling database connectivity for the application.
+     * Configures and provides a pooled DataSource bean for interacting with the database.
+     * Connections come from a bounded Tomcat JDBC pool sized from the "db.pool.*" properties, with
+     * acquisition timeouts, idle eviction, validation on borrow, leak detection that logs the
+     * borrower's stack trace, and a prepared-statement cache. The pool is wrapped in a
+     * {@link MonitoredDataSource} that exposes its usage and wait-time statistics over JMX and, unless
+     * "db.profiler.enabled" is false, hands out connections through a {@link ProfilingDataSource}.
      *
      * @return a fully configured DataSource instance
      */
+    @Bean(destroyMethod = "close")
+    public MonitoredDataSource dataSource() {
+        PoolProperties pool = new PoolProperties();
+        pool.setName("companycompass");
+        pool.setDriverClassName(driver);
+        pool.setUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+
+        pool.setInitialSize(poolInitialSize);
+        pool.setMinIdle(poolMinIdle);
+        pool.setMaxIdle(poolMaxActive);
+        pool.setMaxActive(poolMaxActive);
+        pool.setMaxWait(poolMaxWaitMillis);
+
+        pool.setTimeBetweenEvictionRunsMillis(poolEvictionIntervalMillis);
+        pool.setMinEvictableIdleTimeMillis(poolMinEvictableIdleMillis);
+
+        pool.setValidationQuery(poolValidationQuery);
+        pool.setValidationInterval(poolValidationIntervalMillis);
+        pool.setTestOnBorrow(true);
+        pool.setTestWhileIdle(true);
+
+        // Report, but do not reclaim, connections held longer than the threshold.
+        pool.setSuspectTimeout(poolLeakDetectionSeconds);
+        pool.setLogAbandoned(poolLeakDetectionSeconds > 0);
+
+        String interceptors = "org.apache.tomcat.jdbc.pool.interceptor.ConnectionState";
+        if (poolStatementCacheSize > 0) {
+            interceptors += ";org.apache.tomcat.jdbc.pool.interceptor.StatementCache(prepared=true,callable=false,max="
+                    + poolStatementCacheSize + ")";
+        }
+        pool.setJdbcInterceptors(interceptors);
+
+        org.apache.tomcat.jdbc.pool.DataSource pooled = new org.apache.tomcat.jdbc.pool.DataSource(pool);
+        return profilerEnabled
+                ? new MonitoredDataSource(pooled, new ProfilingDataSource(pooled, sqlProfiler()))
+                : new MonitoredDataSource(pooled);
+    }
+
+    /**
+     * Provides the {@link SqlProfiler} that aggregates the statements run through the data source by
+     * normalized shape, logs slow statements and statements repeated within one request, and serves
+     * the top shapes to the SQL profile endpoint. It is empty when "db.profiler.enabled" is false.
+     *
+     * @return the SQL profiler
+     */
+    @Bean
+    public SqlProfiler sqlProfiler() {
+        return new SqlProfiler(profilerSlowQueryMillis, profilerRepeatThreshold, profilerMaxShapes);
+    }
+
+    /**
+     * Provides the {@link DatabaseBackup} that writes online backups of a file-backed database to
+     * "db.backup.dir", exported over JMX. For an in-memory database its operation reports that there is
+     * nothing to back up.
+     *
+     * @return the backup operation
+     */
+    @Bean
+    public DatabaseBackup databaseBackup() {
+        return new DatabaseBackup(dataSource(), url, Path.of(backupDir));
+    }
+
+    /**
+     * Lists the entity classes of the persistence unit, found by scanning the model package. When the
+     * context is processed ahead of time, the list is generated as code and nothing is scanned at startup. The
+     * method is static so that the list can be built without the property-dependent configuration.
+     *
+     * @param resourceLoader the loader used to find the entity classes
+     * @return the managed types of the persistence unit
+     */
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource ds = new DriverManagerDataSource();
-        ds.setDriverClassName(driver);
-        ds.setUrl(url);
-        ds.setUsername(username);
-        ds.setPassword(password);
-        return ds;
+    public static PersistenceManagedTypes persistenceManagedTypes(ResourceLoader resourceLoader) {
+        return new PersistenceManagedTypesScanner(resourceLoader).scan("net.companycompass.model");
     }
 
     /**
      * Configures and provides a LocalContainerEntityManagerFactoryBean for managing JPA persistence.
-     * This method sets up the EntityManagerFactory with the provided DataSource and Flyway instances,
-     * configures the scanning of entity packages, and applies JPA-specific properties.
+     * This method sets up the EntityManagerFactory with the provided DataSource once the schema is migrated,
+     * registers the given entity classes, and applies JPA-specific properties. Hibernate's own archive
+     * scanning is disabled, as it would otherwise read every class of the application jar looking for
+     * further entities and mapping files.
      *
      * @return a fully configured LocalContainerEntityManagerFactoryBean for JPA persistence
      */
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, Flyway flyway) {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, SchemaMigration schemaMigration,
+                                                                       PersistenceManagedTypes persistenceManagedTypes) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource());
-        em.setPackagesToScan("net.companycompass.model");
+        em.setManagedTypes(persistenceManagedTypes);
         em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
 
         Properties properties = new Properties();
         properties.put("hibernate.transaction.jta.platform",
                 "org.hibernate.engine.transaction.jta.platform.internal.NoJtaPlatform");
-        properties.setProperty("hibernate.hbm2ddl.auto", "update");
+        properties.setProperty("hibernate.archive.scanner", "org.hibernate.boot.archive.scan.internal.DisabledScanner");
+        properties.setProperty("hibernate.hbm2ddl.auto", ddlAuto);
+        properties.setProperty("hibernate.jdbc.batch_size", String.valueOf(jdbcBatchSize));
+        properties.setProperty("hibernate.jdbc.fetch_size", String.valueOf(jdbcFetchSize));
+        properties.setProperty("hibernate.order_inserts", "true");
+        properties.setProperty("hibernate.order_updates", "true");
+        // Counters for the metrics endpoint, without the per-session summary Hibernate would log
+        properties.setProperty("hibernate.generate_statistics", "true");
+        properties.setProperty("hibernate.session.events.log", "false");
         em.setJpaProperties(properties);
         return em;
     }
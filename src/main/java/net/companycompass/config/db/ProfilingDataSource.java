@@ -0,0 +1,182 @@
+package net.companycompass.config.db;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * A {@link DataSource} that hands out connections whose statements report to a {@link SqlProfiler}.
+ *
+ * <p>Connections, statements and result sets are wrapped in dynamic proxies. An update or batch is
+ * recorded when it returns, with the rows it changed. A query is recorded when its result set is
+ * exhausted or closed, with the rows read and the time spent executing it plus the time spent in
+ * {@code next()}, so that time the caller spends processing rows between fetches is not counted.
+ * {@code unwrap} still reaches the driver's objects.
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+    private static final Set<String> UPDATE_METHODS = Set.of("executeUpdate", "executeLargeUpdate");
+    private static final Set<String> BATCH_METHODS = Set.of("executeBatch", "executeLargeBatch");
+
+    private final SqlProfiler profiler;
+
+    public ProfilingDataSource(DataSource target, SqlProfiler profiler) {
+        super(target);
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = ProfilingDataSource.invoke(target, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement" ->
+                        proxy(PreparedStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                case "prepareCall" ->
+                        proxy(CallableStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                case "createStatement" -> proxy(Statement.class, new StatementHandler((Statement) result, null));
+                default -> result;
+            };
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private String batchSql;
+
+        private StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (name.equals("addBatch") && args != null && args.length == 1) {
+                    batchSql = (String) args[0];
+                }
+                return ProfilingDataSource.invoke(target, method, args);
+            }
+
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String text ? text : batchSql;
+            SqlProfiler.StatementStats stats = profiler.statsFor(sql == null ? "(unknown)" : sql);
+            long start = System.nanoTime();
+            Object result = ProfilingDataSource.invoke(target, method, args);
+            long nanos = System.nanoTime() - start;
+
+            if (result instanceof ResultSet resultSet && name.equals("executeQuery")) {
+                return proxy(ResultSet.class, new ResultSetHandler(resultSet, stats, nanos));
+            }
+            long rows = 0;
+            if (UPDATE_METHODS.contains(name)) {
+                rows = ((Number) result).longValue();
+            } else if (BATCH_METHODS.contains(name)) {
+                rows = result instanceof int[] counts ? sumOf(counts) : sumOf((long[]) result);
+            }
+            profiler.record(stats, nanos, rows);
+            return result;
+        }
+
+        private static long sumOf(int[] counts) {
+            long sum = 0;
+            for (int count : counts) {
+                sum += Math.max(count, 0);
+            }
+            return sum;
+        }
+
+        private static long sumOf(long[] counts) {
+            long sum = 0;
+            for (long count : counts) {
+                sum += Math.max(count, 0);
+            }
+            return sum;
+        }
+    }
+
+    private final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final SqlProfiler.StatementStats stats;
+        private long nanos;
+        private long rows;
+        private boolean recorded;
+
+        private ResultSetHandler(ResultSet target, SqlProfiler.StatementStats stats, long executeNanos) {
+            this.target = target;
+            this.stats = stats;
+            this.nanos = executeNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next" -> {
+                    long start = System.nanoTime();
+                    boolean hasRow = (Boolean) ProfilingDataSource.invoke(target, method, args);
+                    nanos += System.nanoTime() - start;
+                    if (hasRow) {
+                        rows++;
+                    } else {
+                        finish();
+                    }
+                    return hasRow;
+                }
+                case "close" -> {
+                    finish();
+                    return ProfilingDataSource.invoke(target, method, args);
+                }
+                default -> {
+                    return ProfilingDataSource.invoke(target, method, args);
+                }
+            }
+        }
+
+        private void finish() {
+            if (!recorded) {
+                recorded = true;
+                profiler.record(stats, nanos, rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package net.companycompass.config.db;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Brings the schema up to date at startup with the Flyway migration scripts.
+ *
+ * <p>A persistent database is only migrated on its first start and after a script has been added, yet
+ * loading Flyway and letting it scan and validate the scripts costs seconds on every start. When asked
+ * to, this class first compares the versions and checksums in Flyway's schema history table with the
+ * scripts, and when they match, Flyway is not even loaded.
+ *
+ * <p>The checksums are computed the way Flyway computes them: a CRC32 over the UTF-8 bytes of every
+ * line without its line terminator, after removing a byte order mark. Anything this check does not
+ * understand, such as a repeatable migration, a failed migration or a missing history table, makes the
+ * database count as not current, so Flyway runs as usual.
+ */
+public final class SchemaMigration {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigration.class);
+    private static final String HISTORY_TABLE = "flyway_schema_history";
+    private static final String HISTORY_QUERY =
+            "select \"version\", \"checksum\", \"success\" from \"" + HISTORY_TABLE + "\" where \"version\" is not null";
+
+    private final int migrationsExecuted;
+
+    private SchemaMigration(int migrationsExecuted) {
+        this.migrationsExecuted = migrationsExecuted;
+    }
+
+    /**
+     * Applies the pending migrations.
+     *
+     * @param dataSource      the database
+     * @param location        the location of the scripts, e.g. {@code classpath:db/migration}
+     * @param skipWhenCurrent whether to check the schema history first and leave a current database alone
+     * @return the outcome
+     */
+    public static SchemaMigration migrate(DataSource dataSource, String location, boolean skipWhenCurrent) {
+        if (skipWhenCurrent && isCurrent(dataSource, location)) {
+            return new SchemaMigration(0);
+        }
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations(location)
+                .load();
+        return new SchemaMigration(flyway.migrate().migrationsExecuted);
+    }
+
+    /**
+     * Returns the number of migrations applied at this start, zero if the schema was current.
+     */
+    public int getMigrationsExecuted() {
+        return migrationsExecuted;
+    }
+
+    /**
+     * Compares the applied migrations with the scripts.
+     *
+     * @param dataSource the database
+     * @param location   the location of the scripts, e.g. {@code classpath:db/migration}
+     * @return true if every script is applied with its current checksum and nothing else is
+     */
+    private static boolean isCurrent(DataSource dataSource, String location) {
+        try {
+            Map<String, Integer> scripts = scriptChecksums(location);
+            if (scripts == null) {
+                return false;
+            }
+            Map<String, Integer> applied = new HashMap<>();
+            try (Connection connection = dataSource.getConnection()) {
+                try (ResultSet tables = connection.getMetaData().getTables(null, null, HISTORY_TABLE, null)) {
+                    if (!tables.next()) {
+                        logger.info("The database has no schema history yet; running Flyway");
+                        return false;
+                    }
+                }
+                try (Statement statement = connection.createStatement();
+                     ResultSet rows = statement.executeQuery(HISTORY_QUERY)) {
+                    while (rows.next()) {
+                        if (!rows.getBoolean(3)) {
+                            return false;
+                        }
+                        applied.put(rows.getString(1), rows.getInt(2));
+                    }
+                }
+            }
+            if (!scripts.equals(applied)) {
+                logger.info("The schema history differs from the {} migration scripts; running Flyway", scripts.size());
+                return false;
+            }
+            logger.info("The schema history matches the {} migration scripts; skipping Flyway", scripts.size());
+            return true;
+        } catch (SQLException ex) {
+            logger.warn("Could not read the schema history; running Flyway", ex);
+            return false;
+        } catch (IOException ex) {
+            logger.warn("Could not read the migration scripts; running Flyway", ex);
+            return false;
+        }
+    }
+
+    /**
+     * Returns the checksums of the versioned migration scripts by version, or null if there are scripts
+     * of another kind.
+     */
+    private static Map<String, Integer> scriptChecksums(String location) throws IOException {
+        Map<String, Integer> checksums = new HashMap<>();
+        for (Resource script : new PathMatchingResourcePatternResolver().getResources(location + "/*.sql")) {
+            String name = script.getFilename();
+            int separator = name == null ? -1 : name.indexOf("__");
+            if (separator < 2 || name.charAt(0) != 'V') {
+                return null;
+            }
+            checksums.put(name.substring(1, separator).replace('_', '.'), checksum(script));
+        }
+        return checksums;
+    }
+
+    private static int checksum(Resource script) throws IOException {
+        CRC32 crc32 = new CRC32();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(script.getInputStream(), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line != null && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            for (; line != null; line = reader.readLine()) {
+                crc32.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return (int) crc32.getValue();
+    }
+}
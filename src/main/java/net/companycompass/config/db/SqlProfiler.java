@@ -0,0 +1,340 @@
+package net.companycompass.config.db;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Aggregates the SQL statements executed through the {@link ProfilingDataSource}.
+ *
+ * <p>Statements are grouped by shape: the SQL text with literals replaced by {@code ?}, {@code IN}
+ * lists collapsed and whitespace normalized, so executions that differ only in their values share one
+ * entry with count, total, mean and maximum time and rows. A statement slower than
+ * {@code db.profiler.slowQueryMillis} is logged with its shape, time and rows. While a request is being
+ * profiled (see {@link SqlProfilingInterceptor}), its statements are also counted per shape, and a shape
+ * executed {@code db.profiler.repeatThreshold} times or more within one request is logged as a likely
+ * N+1 query. At DEBUG level every profiled request logs its statement count and time.
+ *
+ * <p>At most {@code db.profiler.maxShapes} shapes are kept; statements of further shapes are counted
+ * under one "other statements" entry. Totals are exported as the JMX MBean
+ * {@code net.companycompass:type=SqlProfiler}, and the top shapes are served by
+ * {@link net.companycompass.controller.SqlProfileController}.
+ */
+@ManagedResource(objectName = "net.companycompass:type=SqlProfiler",
+        description = "SQL statement statistics by normalized shape")
+public class SqlProfiler {
+    private static final Logger logger = LoggerFactory.getLogger(SqlProfiler.class);
+    private static final String OTHER_SHAPE = "(other statements)";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * The order of {@link #top(int, Order)}.
+     */
+    public enum Order {
+        TOTAL(Comparator.comparingLong(StatementStats::totalNanos)),
+        COUNT(Comparator.comparingLong(StatementStats::count)),
+        MEAN(Comparator.comparingDouble(StatementStats::meanNanos)),
+        MAX(Comparator.comparingLong(StatementStats::maxNanos)),
+        ROWS(Comparator.comparingLong(StatementStats::rows));
+
+        private final Comparator<StatementStats> comparator;
+
+        Order(Comparator<StatementStats> comparator) {
+            this.comparator = comparator.reversed();
+        }
+
+        /**
+         * Parses a request parameter such as "total" or "max", falling back to {@link #TOTAL}.
+         *
+         * @param parameter the parameter value, may be null
+         * @return the matching order
+         */
+        public static Order fromParameter(String parameter) {
+            if (parameter != null) {
+                for (Order order : values()) {
+                    if (order.name().equalsIgnoreCase(parameter.trim())) {
+                        return order;
+                    }
+                }
+            }
+            return TOTAL;
+        }
+    }
+
+    private final long slowQueryNanos;
+    private final int repeatThreshold;
+    private final int maxShapes;
+    private final Map<String, StatementStats> byShape = new ConcurrentHashMap<>();
+    private final StatementStats other = new StatementStats(OTHER_SHAPE);
+    // Normalizing is regex work; prepared statements repeat the same text, so remember the result
+    private final Cache<String, StatementStats> bySql;
+    private final ThreadLocal<RequestProfile> currentRequest = new ThreadLocal<>();
+    private final LongAdder slowStatements = new LongAdder();
+    private final LongAdder repeatedStatementRequests = new LongAdder();
+
+    public SqlProfiler(long slowQueryMillis, int repeatThreshold, int maxShapes) {
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+        this.repeatThreshold = repeatThreshold;
+        this.maxShapes = maxShapes;
+        this.bySql = Caffeine.newBuilder().maximumSize(maxShapes * 4L).build();
+    }
+
+    /**
+     * Returns the statistics entry for a statement, creating it on first use.
+     *
+     * @param sql the statement text as sent to the driver
+     * @return the entry of the statement's shape
+     */
+    StatementStats statsFor(String sql) {
+        return bySql.get(sql, s -> {
+            String shape = normalize(s);
+            StatementStats stats = byShape.get(shape);
+            if (stats == null && byShape.size() >= maxShapes) {
+                return other;
+            }
+            return stats != null ? stats : byShape.computeIfAbsent(shape, StatementStats::new);
+        });
+    }
+
+    /**
+     * Records one execution of a statement.
+     *
+     * @param stats the entry of the statement's shape
+     * @param nanos the time spent executing the statement and reading its results
+     * @param rows  the rows read or changed
+     */
+    void record(StatementStats stats, long nanos, long rows) {
+        stats.record(nanos, rows);
+        RequestProfile request = currentRequest.get();
+        if (request != null) {
+            request.record(stats, nanos);
+        }
+        if (nanos >= slowQueryNanos) {
+            slowStatements.increment();
+            logger.warn("Slow SQL: {} ms, {} rows{}: {}", String.format(Locale.ROOT, "%.1f", nanos / 1e6), rows,
+                    request != null ? " in " + request.name : "", stats.shape());
+        }
+    }
+
+    /**
+     * Starts collecting the statements executed by the current thread for one request.
+     *
+     * @param name a description of the request for the log, e.g. "GET /companies"
+     */
+    public void beginRequest(String name) {
+        currentRequest.set(new RequestProfile(name));
+    }
+
+    /**
+     * Ends the request started on the current thread, logging each statement shape it executed at
+     * least {@code db.profiler.repeatThreshold} times.
+     */
+    public void endRequest() {
+        RequestProfile request = currentRequest.get();
+        if (request == null) {
+            return;
+        }
+        currentRequest.remove();
+        boolean repeated = false;
+        for (Map.Entry<StatementStats, int[]> entry : request.executions.entrySet()) {
+            int executions = entry.getValue()[0];
+            if (executions >= repeatThreshold) {
+                repeated = true;
+                entry.getKey().repeatedInRequests.increment();
+                logger.warn("Possible N+1 query: {} ran the same statement {} times: {}",
+                        request.name, executions, entry.getKey().shape());
+            }
+        }
+        if (repeated) {
+            repeatedStatementRequests.increment();
+        }
+        if (logger.isDebugEnabled() && request.statements > 0) {
+            logger.debug("{} ran {} SQL statements in {} ms", request.name, request.statements,
+                    String.format(Locale.ROOT, "%.1f", request.nanos / 1e6));
+        }
+    }
+
+    /**
+     * Returns the statement shapes with the highest value of the given measure.
+     *
+     * @param limit the maximum number of shapes
+     * @param order the measure to rank by
+     * @return snapshots of the top shapes, highest first
+     */
+    public List<StatementSummary> top(int limit, Order order) {
+        return byShapeAndOther()
+                .sorted(order.comparator)
+                .limit(limit)
+                .map(StatementStats::summary)
+                .toList();
+    }
+
+    private Stream<StatementStats> byShapeAndOther() {
+        return Stream.concat(byShape.values().stream(), Stream.of(other))
+                .filter(stats -> stats.count() > 0);
+    }
+
+    /**
+     * Discards all statistics, e.g. before measuring a scenario.
+     */
+    @ManagedOperation(description = "Discard all statement statistics")
+    public void reset() {
+        bySql.invalidateAll();
+        byShape.clear();
+        other.clear();
+        slowStatements.reset();
+        repeatedStatementRequests.reset();
+    }
+
+    @ManagedAttribute(description = "Distinct statement shapes recorded")
+    public int getShapeCount() {
+        return byShape.size();
+    }
+
+    @ManagedAttribute(description = "Statements executed since startup or the last reset")
+    public long getStatementCount() {
+        return byShapeAndOther().mapToLong(StatementStats::count).sum();
+    }
+
+    @ManagedAttribute(description = "Statements slower than the slow query threshold")
+    public long getSlowStatementCount() {
+        return slowStatements.sum();
+    }
+
+    @ManagedAttribute(description = "Requests that ran one statement shape at least the repeat threshold times")
+    public long getRepeatedStatementRequestCount() {
+        return repeatedStatementRequests.sum();
+    }
+
+    /**
+     * Reduces a statement to its shape: literals become {@code ?}, lists of placeholders collapse to one
+     * and runs of whitespace become a single space.
+     *
+     * @param sql the statement text
+     * @return the normalized shape
+     */
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    /**
+     * Running totals of one statement shape.
+     */
+    static final class StatementStats {
+        private final String shape;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder repeatedInRequests = new LongAdder();
+
+        private StatementStats(String shape) {
+            this.shape = shape;
+        }
+
+        private void record(long nanos, long rowCount) {
+            count.increment();
+            totalNanos.add(nanos);
+            rows.add(rowCount);
+            if (nanos > maxNanos.get()) {
+                maxNanos.accumulateAndGet(nanos, Math::max);
+            }
+        }
+
+        private void clear() {
+            count.reset();
+            totalNanos.reset();
+            rows.reset();
+            maxNanos.set(0);
+            repeatedInRequests.reset();
+        }
+
+        String shape() {
+            return shape;
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        long totalNanos() {
+            return totalNanos.sum();
+        }
+
+        double meanNanos() {
+            long executions = count.sum();
+            return executions == 0 ? 0.0 : (double) totalNanos.sum() / executions;
+        }
+
+        long maxNanos() {
+            return maxNanos.get();
+        }
+
+        long rows() {
+            return rows.sum();
+        }
+
+        StatementSummary summary() {
+            return new StatementSummary(shape, count(), totalNanos() / 1e6, meanNanos() / 1e6, maxNanos() / 1e6,
+                    rows(), repeatedInRequests.sum());
+        }
+    }
+
+    /**
+     * A snapshot of the statistics of one statement shape.
+     *
+     * @param shape              the normalized statement
+     * @param count              the number of executions
+     * @param totalMillis        the total time of all executions
+     * @param meanMillis         the mean time per execution
+     * @param maxMillis          the longest execution
+     * @param rows               the rows read or changed by all executions
+     * @param repeatedInRequests the requests that ran this shape at least the repeat threshold times
+     */
+    public record StatementSummary(String shape, long count, double totalMillis, double meanMillis,
+                                   double maxMillis, long rows, long repeatedInRequests) {
+    }
+
+    /**
+     * The statements of one request. Only touched by the thread processing the request.
+     */
+    private static final class RequestProfile {
+        private final String name;
+        private final Map<StatementStats, int[]> executions = new HashMap<>();
+        private int statements;
+        private long nanos;
+
+        private RequestProfile(String name) {
+            this.name = name;
+        }
+
+        private void record(StatementStats stats, long statementNanos) {
+            executions.computeIfAbsent(stats, s -> new int[1])[0]++;
+            statements++;
+            nanos += statementNanos;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package net.companycompass.config.db;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Attributes the SQL statements run while a handler executes and its view renders to the request, so
+ * the {@link SqlProfiler} can report statement shapes that one request repeats. Statements run by
+ * other threads, such as asynchronous handlers or background writers, only count towards the totals.
+ */
+public class SqlProfilingInterceptor implements AsyncHandlerInterceptor {
+    private final SqlProfiler profiler;
+
+    public SqlProfilingInterceptor(SqlProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        profiler.beginRequest(request.getMethod() + " " + request.getRequestURI());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        profiler.endRequest();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                               @NonNull Object handler) {
+        profiler.endRequest();
+    }
+}
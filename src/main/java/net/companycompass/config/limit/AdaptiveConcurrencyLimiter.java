@@ -0,0 +1,260 @@
+package net.companycompass.config.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control that limits the number of requests in flight and adapts the limit to the
+ * observed latency with a gradient algorithm.
+ *
+ * <p>Every completed request contributes its latency to a short-term and a long-term moving average.
+ * While the short-term latency stays close to the long-term one, the limit grows by roughly its square
+ * root per sample; once requests start queueing inside the application the short-term latency rises,
+ * the gradient {@code long / short} drops below one and the limit shrinks proportionally. Failed requests
+ * shrink the limit multiplicatively. Samples taken while less than half of the limit is in use carry no
+ * information about capacity and are only used for the averages.
+ *
+ * <p>A request that finds the limit reached waits in a short queue until a slot frees up or its deadline
+ * passes. Clients are hashed onto striped counters of their admitted and queued requests; once the limit
+ * is reached while other clients hold or wait for slots, a client whose stripe already holds more than a
+ * fixed share of the limit is rejected instead of queued, so a single busy client cannot take every slot
+ * from the others. A client that is alone, such as every user behind one proxy, queues like any other.
+ */
+public class AdaptiveConcurrencyLimiter {
+    /** Returned by {@link #acquire} when the request was not admitted. */
+    public static final int REJECTED = -1;
+
+    private static final int STRIPES = 256;
+    private static final double SMOOTHING = 0.2;
+    private static final double TOLERANCE = 1.5;
+    private static final int LONG_WINDOW = 600;
+    private static final int SHORT_WINDOW = 10;
+    private static final double FAILURE_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final double clientShare;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicIntegerArray stripes = new AtomicIntegerArray(STRIPES);
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Condition slotAvailable = queueLock.newCondition();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder rejectedClientShare = new LongAdder();
+
+    private volatile int limit;
+    // Guarded by this
+    private double estimatedLimit;
+    private double longRttNanos;
+    private double shortRttNanos;
+
+    /**
+     * @param initialLimit the limit before any latency has been observed
+     * @param minLimit     the lowest the limit may fall to
+     * @param maxLimit     the highest the limit may grow to
+     * @param maxQueue     the number of requests that may wait for a slot; 0 rejects immediately
+     * @param maxWaitMillis how long a queued request waits before it is rejected
+     * @param clientShare  the largest fraction of the limit one client may hold
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                                      long maxWaitMillis, double clientShare) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Require 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.clientShare = clientShare;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    /**
+     * Admits a request, waiting for a slot if the limit has been reached.
+     *
+     * @param client an identifier of the client, such as its address
+     * @return a permit to pass to {@link #release}, or {@link #REJECTED}
+     */
+    public int acquire(String client) {
+        int stripe = stripe(client);
+        int held = stripes.incrementAndGet(stripe);
+        if (tryEnter()) {
+            admitted.increment();
+            return stripe;
+        }
+        // The stripe counts this client's admitted and queued requests, this one included. The share only
+        // applies while other clients hold or wait for slots, so a lone client can still use every slot
+        // and queue for more.
+        boolean othersPresent = inFlight.get() + queued.get() > held - 1;
+        if (othersPresent && held > Math.max(1, (int) Math.ceil(limit * clientShare))) {
+            rejectedClientShare.increment();
+        } else if (awaitSlot()) {
+            admitted.increment();
+            return stripe;
+        }
+        stripes.decrementAndGet(stripe);
+        return REJECTED;
+    }
+
+    /**
+     * Releases a permit and feeds the request's latency into the limit.
+     *
+     * @param permit      the permit returned by {@link #acquire}
+     * @param latencyNanos how long the request took
+     * @param failed      whether the request failed, e.g. with a server error
+     */
+    public void release(int permit, long latencyNanos, boolean failed) {
+        int inFlightAtCompletion = inFlight.get();
+        release(permit);
+        onSample(latencyNanos, inFlightAtCompletion, failed);
+    }
+
+    /**
+     * Releases a permit without a latency sample, for requests whose duration says nothing about
+     * capacity, such as long-lived asynchronous streams.
+     *
+     * @param permit the permit returned by {@link #acquire}
+     */
+    public void release(int permit) {
+        inFlight.decrementAndGet();
+        stripes.decrementAndGet(permit);
+        if (queued.get() > 0) {
+            queueLock.lock();
+            try {
+                slotAvailable.signal();
+            } finally {
+                queueLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Estimates how long a rejected client should wait before retrying.
+     *
+     * @return the suggested delay in whole seconds, at least one
+     */
+    public long retryAfterSeconds() {
+        double rtt;
+        synchronized (this) {
+            rtt = longRttNanos;
+        }
+        double drainNanos = rtt * (queued.get() + 1) / Math.max(1, limit);
+        return Math.max(1, (long) Math.ceil(drainNanos / 1e9));
+    }
+
+    private boolean tryEnter() {
+        int current;
+        while ((current = inFlight.get()) < limit) {
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean awaitSlot() {
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            rejectedQueueFull.increment();
+            return false;
+        }
+        long deadline = System.nanoTime() + maxWaitNanos;
+        queueLock.lock();
+        try {
+            while (!tryEnter()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    rejectedTimeout.increment();
+                    return false;
+                }
+                slotAvailable.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            rejectedTimeout.increment();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+            queueLock.unlock();
+        }
+    }
+
+    private synchronized void onSample(long latencyNanos, int inFlightAtCompletion, boolean failed) {
+        if (longRttNanos == 0) {
+            longRttNanos = latencyNanos;
+            shortRttNanos = latencyNanos;
+        }
+        longRttNanos += (latencyNanos - longRttNanos) / LONG_WINDOW;
+        shortRttNanos += (latencyNanos - shortRttNanos) / SHORT_WINDOW;
+        // After a load spike the long-term average stays inflated; let it follow a recovery quickly
+        if (longRttNanos > 2 * shortRttNanos) {
+            longRttNanos *= 0.95;
+        }
+
+        double next;
+        if (failed) {
+            next = estimatedLimit * FAILURE_BACKOFF;
+        } else if (inFlightAtCompletion < estimatedLimit / 2) {
+            return;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+            double candidate = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            next = estimatedLimit * (1 - SMOOTHING) + candidate * SMOOTHING;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        int previous = limit;
+        limit = (int) estimatedLimit;
+        if (limit > previous && queued.get() > 0) {
+            queueLock.lock();
+            try {
+                slotAvailable.signalAll();
+            } finally {
+                queueLock.unlock();
+            }
+        }
+    }
+
+    private static int stripe(String client) {
+        int hash = client == null ? 0 : client.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejectedQueueFull() {
+        return rejectedQueueFull.sum();
+    }
+
+    public long getRejectedTimeout() {
+        return rejectedTimeout.sum();
+    }
+
+    public long getRejectedClientShare() {
+        return rejectedClientShare.sum();
+    }
+}
@@ -0,0 +1,89 @@
+package net.companycompass.config.limit;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Admits requests through an {@link AdaptiveConcurrencyLimiter}. Requests that are not admitted within
+ * the limiter's queue deadline are answered with 503 and a {@code Retry-After} header. Static resources
+ * and the metrics endpoint are always admitted, so pages stay styled and monitoring keeps working under
+ * overload.
+ */
+public class ConcurrencyLimitFilter implements Filter {
+    /** The servlet context attribute under which the limiter is published, e.g. for metrics. */
+    public static final String LIMITER_ATTRIBUTE = AdaptiveConcurrencyLimiter.class.getName();
+
+    private static final String[] UNLIMITED_PATHS = {"/css/", "/js/", "/static/", "/images/", "/metrics"};
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * Holds the request until the limiter admits it, then measures it for the limiter. Requests that
+     * switch to asynchronous processing release their slot without a latency sample once the initial
+     * dispatch returns, as a long-lived stream says nothing about the capacity of the application.
+     *
+     * @param request  the incoming request object, expected to be of type {@link HttpServletRequest}
+     * @param response the outgoing response object, expected to be of type {@link HttpServletResponse}
+     * @param chain    the filter chain used to propagate an admitted request
+     * @throws IOException      if an input or output error occurs during filtering
+     * @throws ServletException if a servlet-specific error occurs during filtering
+     */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        if (isUnlimited(httpRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        int permit = limiter.acquire(httpRequest.getRemoteAddr());
+        if (permit == AdaptiveConcurrencyLimiter.REJECTED) {
+            reject(httpResponse);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = httpResponse.getStatus() >= 500;
+        } finally {
+            if (httpRequest.isAsyncStarted()) {
+                limiter.release(permit);
+            } else {
+                limiter.release(permit, System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    private boolean isUnlimited(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String prefix : UNLIMITED_PATHS) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", String.valueOf(limiter.retryAfterSeconds()));
+        response.setContentType("text/html");
+        response.getWriter().write(
+                "<html><body style='font-family: sans-serif; text-align: center; padding-top: 50px;'>" +
+                        "<h1 style='color: #e74c3c;'>Server Busy</h1>" +
+                        "<p>This server is currently at full capacity.</p>" +
+                        "<p>Please try again in a moment.</p>" +
+                        "<button onclick='location.reload()' style='padding: 10px 20px; cursor: pointer;'>Try Again</button>" +
+                        "</body></html>"
+        );
+    }
+}
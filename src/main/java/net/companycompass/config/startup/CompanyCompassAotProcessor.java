@@ -0,0 +1,80 @@
+package net.companycompass.config.startup;
+
+import net.companycompass.CompanyCompassApplication;
+import org.springframework.context.annotation.AnnotatedBeanDefinitionReader;
+import org.springframework.context.aot.ContextAotProcessor;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.javapoet.ClassName;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Generates the bean definitions of the Spring context ahead of time, as run by the {@code processAot}
+ * Gradle task.
+ *
+ * <p>The context is prepared the way {@link CompanyCompassApplication} prepares it, and its bean
+ * definitions are written as Java code into an {@code ApplicationContextInitializer} named
+ * {@link CompanyCompassApplication#AOT_INITIALIZER}, together with the configuration class proxies and the
+ * runtime hints. Profiles and {@code @Conditional} beans are resolved now, so the generated code is only
+ * valid for the profile the processing ran with, given by {@code -Dspring.profiles.active} as usual.
+ *
+ * <p>Arguments: the source, resource and class output directories, the group id and the artifact id.
+ */
+public class CompanyCompassAotProcessor extends ContextAotProcessor {
+    private GenericWebApplicationContext springContext;
+
+    public CompanyCompassAotProcessor(Settings settings) {
+        super(CompanyCompassApplication.class, settings);
+    }
+
+    @Override
+    protected GenericApplicationContext prepareApplicationContext(Class<?> application) {
+        springContext = new GenericWebApplicationContext();
+        new AnnotatedBeanDefinitionReader(springContext).register(CompanyCompassApplication.CONFIGURATIONS);
+        return springContext;
+    }
+
+    /**
+     * Generates the code and records the profiles it was generated for in
+     * {@link CompanyCompassApplication#AOT_PROFILES_RESOURCE}, so that the application can tell whether
+     * the generated bean definitions apply to the profile it runs with.
+     */
+    @Override
+    protected ClassName doProcess() {
+        ClassName initializer = super.doProcess();
+        Properties aotProperties = new Properties();
+        aotProperties.setProperty("spring.profiles.active",
+                String.join(",", springContext.getEnvironment().getActiveProfiles()));
+        Path file = getSettings().getResourceOutput().resolve(CompanyCompassApplication.AOT_PROFILES_RESOURCE);
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file)) {
+                aotProperties.store(writer, "Profiles of the ahead-of-time generated bean definitions");
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write " + file, ex);
+        }
+        return initializer;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 5) {
+            throw new IllegalArgumentException(
+                    "Usage: CompanyCompassAotProcessor <sourceOutput> <resourceOutput> <classOutput> <groupId> <artifactId>");
+        }
+        Settings settings = Settings.builder()
+                .sourceOutput(Path.of(args[0]))
+                .resourceOutput(Path.of(args[1]))
+                .classOutput(Path.of(args[2]))
+                .groupId(args[3])
+                .artifactId(args[4])
+                .build();
+        new CompanyCompassAotProcessor(settings).process();
+    }
+}
@@ -0,0 +1,198 @@
+package net.companycompass.config.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Records how long each phase of the server startup takes.
+ *
+ * <p>Phases outside Spring, such as the Tomcat bootstrap, are timed with {@link #record(String, long, long)}.
+ * Installed as the {@link ApplicationStartup} of the Spring context, the timeline also receives the
+ * context's own startup steps: the context refresh is recorded as a whole, and the instantiation of
+ * the beans named in the constructor, e.g. {@code schemaMigration} and {@code entityManagerFactory}, is recorded
+ * under the given phase name. A bean's time excludes the beans created while resolving its
+ * dependencies, so the EntityManagerFactory does not also count the Flyway migration it waits for.
+ * At DEBUG level, every bean that takes 100 ms or more of its own to create is logged.
+ */
+public class StartupTimeline implements ApplicationStartup {
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimeline.class);
+    private static final String REFRESH_STEP = "spring.context.refresh";
+    private static final String INSTANTIATE_STEP = "spring.beans.instantiate";
+    private static final long SLOW_BEAN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Map<String, String> beanPhases;
+    private final Map<String, Phase> phases = new HashMap<>();
+    private final ThreadLocal<Deque<Step>> activeSteps = ThreadLocal.withInitial(ArrayDeque::new);
+    private final AtomicLong stepIds = new AtomicLong();
+
+    /**
+     * @param beanPhases the beans whose instantiation is recorded, mapped to the name of their phase
+     */
+    public StartupTimeline(Map<String, String> beanPhases) {
+        this.beanPhases = Map.copyOf(beanPhases);
+    }
+
+    /**
+     * Records a phase. A phase recorded twice keeps the sum of both times.
+     *
+     * @param phase      the name of the phase
+     * @param startNanos the {@link System#nanoTime()} at which the phase started
+     * @param nanos      the time the phase took
+     */
+    public synchronized void record(String phase, long startNanos, long nanos) {
+        phases.merge(phase, new Phase(startNanos, nanos), (first, again) -> new Phase(first.startNanos, first.nanos + again.nanos));
+    }
+
+    /**
+     * Returns the time of a recorded phase.
+     *
+     * @param phase the name of the phase
+     * @return the time in nanoseconds, or zero if the phase has not been recorded
+     */
+    public synchronized long nanos(String phase) {
+        Phase recorded = phases.get(phase);
+        return recorded != null ? recorded.nanos : 0L;
+    }
+
+    /**
+     * Describes the recorded phases in the order they started, together with the time since the JVM
+     * started, e.g. "ready 4210 ms after JVM start: Tomcat 180 ms, Spring context 3120 ms, ...".
+     *
+     * @return the summary for the startup log
+     */
+    public synchronized String summary() {
+        StringBuilder summary = new StringBuilder("ready ")
+                .append(ManagementFactory.getRuntimeMXBean().getUptime())
+                .append(" ms after JVM start");
+        String separator = ": ";
+        List<Map.Entry<String, Phase>> ordered = new ArrayList<>(phases.entrySet());
+        ordered.sort(Comparator.comparingLong(entry -> entry.getValue().startNanos));
+        for (Map.Entry<String, Phase> phase : ordered) {
+            summary.append(separator).append(phase.getKey()).append(' ')
+                    .append(TimeUnit.NANOSECONDS.toMillis(phase.getValue().nanos)).append(" ms");
+            separator = ", ";
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public StartupStep start(String name) {
+        Deque<Step> active = activeSteps.get();
+        Step step = new Step(name, stepIds.incrementAndGet(), active.peek());
+        active.push(step);
+        return step;
+    }
+
+    private void finish(Step step) {
+        Deque<Step> active = activeSteps.get();
+        active.remove(step);
+        long nanos = System.nanoTime() - step.startNanos;
+        if (REFRESH_STEP.equals(step.name)) {
+            record("Spring context", step.startNanos, nanos);
+        } else if (INSTANTIATE_STEP.equals(step.name)) {
+            if (step.parent != null && INSTANTIATE_STEP.equals(step.parent.name)) {
+                step.parent.nestedNanos += nanos;
+            }
+            String beanName = BeanFactoryUtils.transformedBeanName(step.tag("beanName"));
+            long ownNanos = nanos - step.nestedNanos;
+            String phase = beanPhases.get(beanName);
+            if (phase != null) {
+                record(phase, step.startNanos, ownNanos);
+            }
+            if (logger.isDebugEnabled() && ownNanos >= SLOW_BEAN_NANOS) {
+                logger.debug("Bean '{}' took {} ms to create", beanName, TimeUnit.NANOSECONDS.toMillis(ownNanos));
+            }
+        }
+    }
+
+    private final class Step implements StartupStep {
+        private final String name;
+        private final long id;
+        private final Step parent;
+        private final long startNanos = System.nanoTime();
+        private final List<Tag> tags = new ArrayList<>(2);
+        private long nestedNanos;
+
+        private Step(String name, long id, Step parent) {
+            this.name = name;
+            this.id = id;
+            this.parent = parent;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public Long getParentId() {
+            return parent != null ? parent.id : null;
+        }
+
+        @Override
+        public StartupStep tag(String key, String value) {
+            tags.add(new StepTag(key, value));
+            return this;
+        }
+
+        @Override
+        public StartupStep tag(String key, Supplier<String> value) {
+            // Only the bean name is ever read, so other values are not computed
+            return tag(key, "beanName".equals(key) ? value.get() : "");
+        }
+
+        @Override
+        public Tags getTags() {
+            return tags::iterator;
+        }
+
+        @Override
+        public void end() {
+            finish(this);
+        }
+
+        private String tag(String key) {
+            for (Tag tag : tags) {
+                if (tag.getKey().equals(key)) {
+                    return tag.getValue();
+                }
+            }
+            return null;
+        }
+    }
+
+    private record Phase(long startNanos, long nanos) {
+    }
+
+    private record StepTag(String key, String value) implements StartupStep.Tag {
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String getValue() {
+            return value;
+        }
+    }
+}
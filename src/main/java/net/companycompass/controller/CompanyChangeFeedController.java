@@ -0,0 +1,61 @@
+package net.companycompass.controller;
+
+import net.companycompass.service.CompanyChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Server-Sent Events stream of company changes, for dashboards that would otherwise poll the listing.
+ * Each committed add, update or delete is sent as an {@code added}, {@code updated} or {@code deleted}
+ * event whose data is the company as JSON (only its id for a deletion) and whose id a reconnecting
+ * {@code EventSource} returns as {@code Last-Event-ID} to resume where it left off. See
+ * {@link CompanyChangeFeed} for buffering, heartbeats and slow clients.
+ * The feed is only available when the application runs against the database; demo sessions are private.
+ */
+@RestController
+@Profile("local")
+public class CompanyChangeFeedController {
+    private final CompanyChangeFeed changeFeed;
+
+    @Autowired
+    public CompanyChangeFeedController(CompanyChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * Opens a change stream.
+     *
+     * @param lastEventId the id of the last change the client received, sent by a reconnecting client
+     * @return the stream of changes
+     */
+    @GetMapping(value = "/api/companies/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return changeFeed.subscribe(lastEventId);
+    }
+
+    /**
+     * Answers 503 when no more streams can be opened; the client retries later.
+     *
+     * @param ex the refusal
+     * @return a problem detail with a Retry-After header
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ProblemDetail> tooManySubscribers(RejectedExecutionException ex) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "10")
+                .body(problem);
+    }
+}
@@ -0,0 +1,85 @@
+package net.companycompass.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import net.companycompass.service.CompanyExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The CompanyExportController class serves the full company dataset for downstream jobs.
+ * The export is written straight to the response as rows are read from the database, so no
+ * intermediate list is built regardless of the table size. Both formats can optionally be
+ * gzip-compressed on the fly and are then served as a {@code .gz} attachment.
+ * Export is only available when the application runs against the database.
+ */
+@Controller
+@Profile("local")
+public class CompanyExportController {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Service responsible for reading the companies through a database cursor and formatting them.
+     */
+    private final CompanyExportService exportService;
+
+    @Autowired
+    public CompanyExportController(CompanyExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * Streams all companies as CSV.
+     *
+     * @param gzip     whether to gzip-compress the output
+     * @param response the response the CSV is written to
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping("/export/companies.csv")
+    public void exportCsv(@RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                          HttpServletResponse response) throws IOException {
+        try (Writer writer = open(response, "text/csv", "companies.csv", gzip)) {
+            exportService.exportCsv(writer);
+        }
+    }
+
+    /**
+     * Streams all companies as newline-delimited JSON.
+     *
+     * @param gzip     whether to gzip-compress the output
+     * @param response the response the JSON lines are written to
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping("/export/companies.ndjson")
+    public void exportNdjson(@RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                             HttpServletResponse response) throws IOException {
+        try (Writer writer = open(response, "application/x-ndjson", "companies.ndjson", gzip)) {
+            exportService.exportNdjson(writer);
+        }
+    }
+
+    private static Writer open(HttpServletResponse response, String contentType, String fileName, boolean gzip)
+            throws IOException {
+        OutputStream output = response.getOutputStream();
+        if (gzip) {
+            response.setContentType("application/gzip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + ".gz\"");
+            output = new GZIPOutputStream(output, WRITE_BUFFER_SIZE);
+        } else {
+            response.setContentType(contentType + ";charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        }
+        return new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+    }
+}
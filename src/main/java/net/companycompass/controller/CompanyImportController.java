@@ -0,0 +1,95 @@
+package net.companycompass.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import net.companycompass.service.CompanyImportResult;
+import net.companycompass.service.CompanyImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The CompanyImportController class handles bulk loading of companies from CSV files.
+ * A file can be uploaded from the import page, or the CSV can be posted as the raw request body
+ * with the {@code text/csv} content type for scripted loads. In both cases the content is streamed
+ * to the {@link CompanyImportService} rather than read into memory first.
+ * Bulk import is only available when the application runs against the database.
+ */
+@Controller
+@Profile("local")
+public class CompanyImportController {
+    /**
+     * Service responsible for parsing the CSV input and inserting the companies in batches.
+     */
+    private final CompanyImportService importService;
+
+    @Autowired
+    public CompanyImportController(CompanyImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * Displays the "Import Companies" page with the upload form.
+     *
+     * @return a ModelAndView object containing the layout template, the import content view and the page title
+     */
+    @GetMapping("/import")
+    public ModelAndView importPage() {
+        ModelAndView mav = new ModelAndView("layout");
+        mav.addObject("content", "import");
+        mav.addObject("pageTitle", "Import Companies");
+        return mav;
+    }
+
+    /**
+     * Imports the companies of an uploaded CSV file and displays the summary on the import page.
+     *
+     * @param file the uploaded CSV file with "name,location" rows
+     * @return a ModelAndView object containing the layout template, the import content view,
+     * the page title and the import result
+     * @throws IOException if the uploaded file cannot be read
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ModelAndView importFile(@RequestParam("file") MultipartFile file) throws IOException {
+        CompanyImportResult result;
+        try (InputStream input = file.getInputStream()) {
+            result = importService.importCsv(input);
+        }
+        ModelAndView mav = importPage();
+        mav.addObject("result", result);
+        return mav;
+    }
+
+    /**
+     * Imports the companies of a CSV request body and returns a plain-text summary, one
+     * {@code key=value} pair per line followed by the rejected rows.
+     *
+     * @param request the request whose body is the CSV content
+     * @return the import summary as plain text
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/import", consumes = "text/csv", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public String importBody(HttpServletRequest request) throws IOException {
+        CompanyImportResult result = importService.importCsv(request.getInputStream());
+        StringBuilder summary = new StringBuilder()
+                .append("rowsRead=").append(result.rowsRead()).append('\n')
+                .append("imported=").append(result.imported()).append('\n')
+                .append("rejected=").append(result.rejected()).append('\n')
+                .append("elapsedMillis=").append(result.elapsedMillis()).append('\n')
+                .append("rowsPerSecond=").append(result.rowsPerSecond()).append('\n');
+        for (CompanyImportResult.RowError error : result.errors()) {
+            summary.append("error line ").append(error.line()).append(": ").append(error.message()).append('\n');
+        }
+        return summary.toString();
+    }
+}
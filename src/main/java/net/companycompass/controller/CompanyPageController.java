@@ -1,10 +1,16 @@
 package net.companycompass.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import net.companycompass.model.Company;
+import net.companycompass.model.CompanyFilter;
+import net.companycompass.model.CompanyPage;
+import net.companycompass.model.CompanySort;
 import net.companycompass.service.CompanyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
@@ -17,6 +23,11 @@ import org.springframework.web.servlet.ModelAndView;
  */
 @Controller
 public class CompanyPageController {
+    /**
+     * The number of locations listed in the facet panel next to the company table.
+     */
+    static final int FACET_LIMIT = 10;
+
     /**
      * Service layer dependency responsible for handling business logic
      * related to Company operations, including creating, reading, updating,
@@ -37,6 +48,11 @@ public class CompanyPageController {
      */
     private final Environment environment;
 
+    /**
+     * Cache of the rendered company table, reused across views of "/" until the data changes.
+     */
+    private final CompanyTableCache tableCache;
+
     /**
      * Constructs a new instance of the CompanyPageController class. Initializes the controller
      * with a CompanyService, which serves as the core service layer dependency for managing
@@ -47,25 +63,72 @@ public class CompanyPageController {
      *                       and delete operations.
      */
     @Autowired
-    public CompanyPageController(CompanyService companyService, Environment environment) {
+    public CompanyPageController(CompanyService companyService, Environment environment, CompanyTableCache tableCache) {
         this.companyService = companyService;
         this.environment = environment;
+        this.tableCache = tableCache;
     }
 
     /**
-     * Retrieves all companies and prepares a view for displaying them.
-     * The method sets up a ModelAndView object with the layout template and populates it with
-     * the content to be displayed, the page title, and the list of companies.
+     * Retrieves one page of companies and prepares a view for displaying it.
+     * Pages are located with a keyset cursor: {@code after} continues past the row with the given id
+     * and {@code before} goes back to the rows preceding it, so the cost of a page does not depend on
+     * how far into the listing it is or on the size of the table. The table itself is rendered once per
+     * page and data version and then served from the {@link CompanyTableCache}.
+     * {@code location} and {@code name} narrow the listing, ignoring case, to one location and to names
+     * starting with a prefix; a filtered listing is ordered by name and read through the name_key and
+     * location_key indexes. The facet panel beside the table lists the locations with the most
+     * companies, read from counts the service keeps in memory.
      *
-     * @return a ModelAndView object containing the layout template, page content, page title,
-     * and the list of companies to be displayed
+     * @param after  the id of the row the page starts after, or null for the first page
+     * @param before the id of the row the page ends before, or null
+     * @param size   the number of rows per page, clamped to {@link CompanyPage#MAX_SIZE}
+     * @param sort   the ordering of the listing: "id", "name" or "location"
+     * @param location the location to list, or null for every location
+     * @param name     the start of the names to list, or null for every name
+     * @param request  the current request
+     * @param response the current response
+     * @return a ModelAndView object containing the layout template, page content, page title
+     * and the rendered table of the requested page with its navigation links
      */
     @GetMapping("/")
-    public ModelAndView getAllCompanies() {
+    public ModelAndView getAllCompanies(@RequestParam(value = "after", required = false) Long after,
+                                        @RequestParam(value = "before", required = false) Long before,
+                                        @RequestParam(value = "size", defaultValue = "" + CompanyPage.DEFAULT_SIZE) int size,
+                                        @RequestParam(value = "sort", required = false) String sort,
+                                        @RequestParam(value = "location", required = false) String location,
+                                        @RequestParam(value = "name", required = false) String name,
+                                        HttpServletRequest request, HttpServletResponse response) {
+        String companyTable = tableCache.getTable(companyService, CompanySort.fromParameter(sort),
+                CompanyFilter.of(location, name), after, before, CompanyPage.clampSize(size), request, response);
         ModelAndView mav = new ModelAndView("layout");
         mav.addObject("content", "company");
         mav.addObject("pageTitle", "Companies");
-        mav.addObject("companies", companyService.getCompanies());
+        mav.addObject("companyTable", companyTable);
+        mav.addObject("locationFacets", companyService.getLocationFacets(FACET_LIMIT));
+        mav.addObject("location", location == null ? "" : location);
+        mav.addObject("name", name == null ? "" : name);
+        return mav;
+    }
+
+    /**
+     * Searches company names and locations and prepares a view listing the ranked matches.
+     * Every word of the query must match the start of a word in the name or the location,
+     * so the endpoint also serves typeahead-style partial input such as "blue ca".
+     *
+     * @param query the free-text query; a blank query renders the empty search form
+     * @param limit the maximum number of results, clamped to {@link CompanyPage#MAX_SIZE}
+     * @return a ModelAndView object containing the layout template, the search content view,
+     * the page title, the query and the matching companies
+     */
+    @GetMapping("/search")
+    public ModelAndView search(@RequestParam(value = "q", required = false) String query,
+                               @RequestParam(value = "limit", defaultValue = "" + CompanyPage.DEFAULT_SIZE) int limit) {
+        ModelAndView mav = new ModelAndView("layout");
+        mav.addObject("content", "search");
+        mav.addObject("pageTitle", "Search");
+        mav.addObject("query", query == null ? "" : query);
+        mav.addObject("companies", companyService.searchCompanies(query, CompanyPage.clampSize(limit)));
         return mav;
     }
 
@@ -107,33 +170,65 @@ public class CompanyPageController {
     /**
      * Saves the details of a company by either adding it as a new entry or updating an existing one.
      * If the `id` field of the provided company is null, the company is treated as a new entity,
-     * otherwise, the existing company with the same `id` is updated.
+     * otherwise, the existing company with the same `id` is updated. An update is based on the version
+     * the form was rendered with; if someone else saved the company in the meantime, the edit form is
+     * shown again with the current values and a notice instead of overwriting their change.
      *
      * @param company the Company object containing the details to be saved or updated
-     * @return a String indicating the redirection path to the homepage after saving or updating the company
+     * @param request the current request
+     * @return a String indicating the redirection path to the homepage after saving or updating the company,
+     * or back to the edit form after a conflicting update
      */
     @PostMapping("/save")
-    public String saveCompany(@ModelAttribute Company company) {
+    public String saveCompany(@ModelAttribute Company company, HttpServletRequest request) {
+        startSession(request);
         if (company.getId() == null) {
             companyService.addCompany(company);
         } else {
-            companyService.updateCompany(company);
+            try {
+                companyService.updateCompany(company);
+            } catch (OptimisticLockingFailureException ex) {
+                return "redirect:/edit/" + company.getId() + "?conflict";
+            }
         }
         return "redirect:/";
     }
 
     /**
      * Deletes a company based on the provided unique identifier and redirects to the homepage.
+     * The listing links carry the version each row was rendered with; if someone else saved the company
+     * since, the edit form is shown with the current values and a notice instead of deleting their change.
      *
-     * @param id the unique identifier of the company to be deleted
-     * @return a String indicating the redirection path to the homepage after the deletion is performed
+     * @param id      the unique identifier of the company to be deleted
+     * @param version the version the deletion is based on, or null to delete whatever version is stored
+     * @param request the current request
+     * @return a String indicating the redirection path to the homepage after the deletion is performed,
+     * or to the edit form after a conflicting change
      */
     @GetMapping("/delete/{id}")
-    public String deleteCompany(@PathVariable("id") Long id) {
-        companyService.deleteCompany(id);
+    public String deleteCompany(@PathVariable("id") Long id,
+                                @RequestParam(value = "version", required = false) Long version,
+                                HttpServletRequest request) {
+        startSession(request);
+        try {
+            companyService.deleteCompany(id, version);
+        } catch (OptimisticLockingFailureException ex) {
+            return "redirect:/edit/" + id + "?conflict";
+        }
         return "redirect:/";
     }
 
+    /**
+     * Opens an HTTP session for a browser that changes data in write-behind mode, so that the listing it
+     * is redirected to waits for its own queued write. Synchronous writes are visible once the request
+     * returns and need no session; API clients are never given one.
+     */
+    private void startSession(HttpServletRequest request) {
+        if (environment.getProperty("companies.writeBehind.enabled", Boolean.class, false)) {
+            request.getSession();
+        }
+    }
+
     /**
      * Displays the "About" page by preparing a ModelAndView object.
      * The method sets up the layout template and includes the content view
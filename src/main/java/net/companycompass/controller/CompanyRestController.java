@@ -0,0 +1,277 @@
+package net.companycompass.controller;
+
+import net.companycompass.model.Company;
+import net.companycompass.model.CompanyPage;
+import net.companycompass.model.CompanySort;
+import net.companycompass.service.CompanyNotFoundException;
+import net.companycompass.service.CompanyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON API over {@link CompanyService} for integrations.
+ *
+ * <p>The listing carries a weak ETag derived from the {@link CompanyService#getDataVersion() data
+ * version}, which moves on every write. A listing request whose {@code If-None-Match} matches the current
+ * version is answered with 304 before any company is loaded, so polling an unchanged listing costs a
+ * single counter read. The listing tag is weak so that the connector may gzip the JSON, which it never
+ * does for a response with a strong ETag; it names no company and is never a precondition of a write.
+ *
+ * <p>A single company carries the strong ETag of its row version, in the same form whether it is read,
+ * created or updated. A read whose {@code If-None-Match} still matches is answered with 304 after
+ * reading only the version. Updates and deletes of {@code /{id}} honour {@code If-Match} by passing the
+ * version it names to the conditional UPDATE or DELETE, so the precondition and the write are one
+ * statement: of two writes based on the same version only the first applies, the second fails with 412,
+ * and changes to other companies never fail it. As {@code If-Match} compares tags strongly, a weak tag
+ * never matches and fails with 412 as well. In write-behind mode queued writes are not conditional, see
+ * {@code WriteBehindCompanyService}.
+ */
+@RestController
+@RequestMapping("/api/companies")
+public class CompanyRestController {
+    private final CompanyService companyService;
+
+    @Autowired
+    public CompanyRestController(CompanyService companyService) {
+        this.companyService = companyService;
+    }
+
+    /**
+     * Lists one page of companies. Links to the neighbouring pages are returned in a {@code Link} header
+     * with the relations {@code next} and {@code prev}.
+     *
+     * @param after   the id of the row the page starts after, or null for the first page
+     * @param before  the id of the row the page ends before, or null
+     * @param size    the number of rows per page, clamped to {@link CompanyPage#MAX_SIZE}
+     * @param sort    the ordering: "id", "name" or "location"
+     * @param request the current request, used for the conditional check
+     * @return the companies of the page, or 304 when the client's copy is current
+     */
+    @GetMapping
+    public ResponseEntity<List<Company>> list(@RequestParam(value = "after", required = false) Long after,
+                                              @RequestParam(value = "before", required = false) Long before,
+                                              @RequestParam(value = "size", defaultValue = "" + CompanyPage.DEFAULT_SIZE) int size,
+                                              @RequestParam(value = "sort", required = false) String sort,
+                                              WebRequest request) {
+        String etag = weakEtag(companyService.getDataVersion());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        CompanyPage page = companyService.getCompanyPage(CompanySort.fromParameter(sort), after, before,
+                CompanyPage.clampSize(size));
+        List<String> links = new ArrayList<>(2);
+        if (page.hasNext()) {
+            links.add(link(page, "after", page.nextCursor(), "next"));
+        }
+        if (page.hasPrevious()) {
+            links.add(link(page, "before", page.previousCursor(), "prev"));
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+        if (!links.isEmpty()) {
+            response.header(HttpHeaders.LINK, String.join(", ", links));
+        }
+        return response.body(page.companies());
+    }
+
+    /**
+     * Retrieves a single company.
+     *
+     * @param id      the id of the company
+     * @param request the current request, used for the conditional check
+     * @return the company, or 304 when the client's copy is current
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Company> get(@PathVariable("id") Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Long version = companyService.getCompanyVersion(id);
+            if (version != null && request.checkNotModified(etag(version))) {
+                return null;
+            }
+        }
+        Company company = companyService.getCompanyById(id);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (company.getVersion() != null) {
+            response.eTag(etag(company.getVersion()));
+        }
+        return response.body(company);
+    }
+
+    /**
+     * Creates a company. Any id in the body is ignored.
+     *
+     * @param company the name and location of the new company
+     * @return 201 with the created company and its location, or 409 if it could not be stored
+     */
+    @PostMapping
+    public ResponseEntity<Company> create(@RequestBody Company company) {
+        requireFields(company);
+        company.setId(null);
+        company.setVersion(null);
+        companyService.addCompany(company);
+        if (company.getId() == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(company.getId())
+                .toUri();
+        ResponseEntity.BodyBuilder response = ResponseEntity.created(location);
+        if (company.getVersion() != null) {
+            response.eTag(etag(company.getVersion()));
+        }
+        return response.body(company);
+    }
+
+    /**
+     * Replaces the name and location of a company. The update is conditional on the version named by
+     * {@code If-Match}, or else on a {@code version} in the body; {@code If-Match: *} only requires the
+     * company to exist.
+     *
+     * @param id      the id of the company
+     * @param company the new name and location, and optionally the version they are based on
+     * @param request the current request, used to read {@code If-Match}
+     * @return the updated company, 412 when {@code If-Match} is weak or no longer matches, or 409 when the
+     * company is no longer at the version given in the body
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<Company> update(@PathVariable("id") Long id, @RequestBody Company company,
+                                          WebRequest request) {
+        requireFields(company);
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (isWeak(ifMatch)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        company.setId(id);
+        if (ifMatch != null) {
+            company.setVersion(versionOf(ifMatch));
+        }
+        try {
+            companyService.updateCompany(company);
+        } catch (OptimisticLockingFailureException | CompanyNotFoundException ex) {
+            if (ifMatch == null) {
+                throw ex;
+            }
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (company.getVersion() != null) {
+            response.eTag(etag(company.getVersion()));
+        }
+        return response.body(company);
+    }
+
+    /**
+     * Deletes a company. The deletion is conditional on the version named by {@code If-Match}, or else on
+     * the {@code version} parameter.
+     *
+     * @param id      the id of the company
+     * @param version the version the deletion is based on, or null to delete whatever version is stored
+     * @param request the current request, used to read {@code If-Match}
+     * @return 204, 412 when {@code If-Match} is weak or no longer matches, or 409 when the company is no
+     * longer at the given version
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable("id") Long id,
+                                       @RequestParam(value = "version", required = false) Long version,
+                                       WebRequest request) {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (isWeak(ifMatch)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        try {
+            companyService.deleteCompany(id, ifMatch == null ? version : versionOf(ifMatch));
+        } catch (OptimisticLockingFailureException | CompanyNotFoundException ex) {
+            if (ifMatch == null) {
+                throw ex;
+            }
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(CompanyNotFoundException.class)
+    public ResponseEntity<ProblemDetail> handleNotFound(CompanyNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ProblemDetail> handleConflict(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ProblemDetail> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest()
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage()));
+    }
+
+    private static void requireFields(Company company) {
+        if (company.getName() == null || company.getName().isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (company.getLocation() == null) {
+            throw new IllegalArgumentException("location is required");
+        }
+    }
+
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static String weakEtag(long version) {
+        return "W/" + etag(version);
+    }
+
+    /**
+     * Returns whether an {@code If-Match} header names a weak tag, which the strong comparison that
+     * {@code If-Match} requires never matches.
+     */
+    private static boolean isWeak(String ifMatch) {
+        return ifMatch != null && ifMatch.trim().startsWith("W/");
+    }
+
+    /**
+     * Reads the row version named by an {@code If-Match} header.
+     *
+     * @return the version, or null for {@code *}
+     * @throws IllegalArgumentException if the header is not a single version tag or {@code *}
+     */
+    private static Long versionOf(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ex) {
+                // Fall through to the error below
+            }
+        }
+        throw new IllegalArgumentException("If-Match must be a single entity tag of a company or *");
+    }
+
+    private static String link(CompanyPage page, String cursorName, Long cursor, String relation) {
+        String uri = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after")
+                .replaceQueryParam("before")
+                .replaceQueryParam(cursorName, cursor)
+                .replaceQueryParam("size", page.size())
+                .replaceQueryParam("sort", page.sort().getParameter())
+                .toUriString();
+        return "<" + uri + ">; rel=\"" + relation + "\"";
+    }
+}
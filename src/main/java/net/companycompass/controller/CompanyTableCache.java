@@ -0,0 +1,140 @@
+package net.companycompass.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.companycompass.model.CompanyFilter;
+import net.companycompass.model.CompanyPage;
+import net.companycompass.model.CompanySort;
+import net.companycompass.service.CompanyService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+/**
+ * Cache of the rendered company table, the rows and pager of the "/" listing.
+ * Entries are keyed by the {@link CompanyService#getDataVersion() data version} together with the page
+ * parameters, so a repeated view of an unchanged page neither queries the service nor renders a row,
+ * and any write makes every older entry unreachable. Unreachable entries age out under the size bound.
+ */
+@Component
+@ManagedResource(objectName = "net.companycompass:type=CompanyTableCache",
+        description = "Rendered company table cache statistics")
+public class CompanyTableCache {
+    static final String TEMPLATE = "company-table";
+
+    private final SpringTemplateEngine templateEngine;
+    private final ApplicationContext applicationContext;
+    private final Cache<TableKey, String> tables;
+    private volatile JakartaServletWebApplication webApplication;
+
+    public CompanyTableCache(SpringTemplateEngine templateEngine, ApplicationContext applicationContext,
+                             @Value("${cache.fragments.maxEntries:500}") long maxEntries) {
+        this.templateEngine = templateEngine;
+        this.applicationContext = applicationContext;
+        this.tables = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the HTML of one page of the company table, rendering and caching it on a miss.
+     * Concurrent misses for the same page are rendered once.
+     *
+     * @param companyService the service the page is read from
+     * @param sort           the ordering of the listing, ignored when the filter is not empty
+     * @param filter         the location and name prefix to match, {@link CompanyFilter#NONE} for all companies
+     * @param after          the id of the row the page starts after, or null
+     * @param before         the id of the row the page ends before, or null
+     * @param size           the number of rows per page
+     * @param request        the current request, used to build links
+     * @param response       the current response, used to build links
+     * @return the rendered table
+     */
+    public String getTable(CompanyService companyService, CompanySort sort, CompanyFilter filter, Long after,
+                           Long before, int size, HttpServletRequest request, HttpServletResponse response) {
+        CompanySort order = filter.isEmpty() ? sort : CompanySort.NAME;
+        // The version is read before the page, so an entry can only hold data at least as new as its key
+        long dataVersion = companyService.getDataVersion();
+        if (rewritesLinks(request)) {
+            // Links carry the session id of this client and must not be handed to anyone else
+            return render(page(companyService, order, filter, after, before, size), filter, request, response);
+        }
+        TableKey key = new TableKey(dataVersion, order, filter, after, before, size);
+        return tables.get(key, k -> render(page(companyService, order, filter, after, before, size), filter,
+                request, response));
+    }
+
+    /**
+     * Returns whether links rendered for this request get its session id appended: the container does so
+     * while a session exists that the client is not known to send as a cookie, which includes a session
+     * created during this request, as the session-scoped sandbox does on a first visit.
+     */
+    private static boolean rewritesLinks(HttpServletRequest request) {
+        return request.getSession(false) != null && !request.isRequestedSessionIdFromCookie();
+    }
+
+    private static CompanyPage page(CompanyService companyService, CompanySort sort, CompanyFilter filter,
+                                    Long after, Long before, int size) {
+        return filter.isEmpty()
+                ? companyService.getCompanyPage(sort, after, before, size)
+                : companyService.getFilteredPage(filter, after, before, size);
+    }
+
+    private String render(CompanyPage page, CompanyFilter filter, HttpServletRequest request,
+                          HttpServletResponse response) {
+        WebContext context = new WebContext(webApplication(request).buildExchange(request, response), request.getLocale());
+        context.setVariable(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+                new ThymeleafEvaluationContext(applicationContext, null));
+        context.setVariable("companies", page.companies());
+        context.setVariable("page", page);
+        context.setVariable("filter", filter);
+        return templateEngine.process(TEMPLATE, context);
+    }
+
+    private JakartaServletWebApplication webApplication(HttpServletRequest request) {
+        JakartaServletWebApplication application = webApplication;
+        if (application == null) {
+            application = JakartaServletWebApplication.buildApplication(request.getServletContext());
+            webApplication = application;
+        }
+        return application;
+    }
+
+    @ManagedOperation(description = "Discard all rendered tables")
+    public void clear() {
+        tables.invalidateAll();
+    }
+
+    @ManagedAttribute(description = "Rendered tables currently cached")
+    public long getEntryCount() {
+        return tables.estimatedSize();
+    }
+
+    @ManagedAttribute(description = "Listing views served from a cached table")
+    public long getHits() {
+        return tables.stats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Listing views that rendered the table")
+    public long getMisses() {
+        return tables.stats().missCount();
+    }
+
+    @ManagedAttribute(description = "Fraction of listing views served from a cached table")
+    public double getHitRate() {
+        return tables.stats().hitRate();
+    }
+
+    private record TableKey(long dataVersion, CompanySort sort, CompanyFilter filter, Long after, Long before, int size) {
+    }
+}
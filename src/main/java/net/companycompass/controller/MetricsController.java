@@ -0,0 +1,32 @@
+package net.companycompass.controller;
+
+import net.companycompass.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Serves the application metrics for Prometheus to scrape.
+ */
+@RestController
+public class MetricsController {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry registry;
+
+    @Autowired
+    public MetricsController(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Returns request and service latency histograms, persistence, connection pool, session and JVM
+     * metrics in the Prometheus text exposition format.
+     *
+     * @return the current metrics
+     */
+    @GetMapping(value = "/metrics", produces = CONTENT_TYPE)
+    public String metrics() {
+        return registry.scrape();
+    }
+}
@@ -0,0 +1,38 @@
+package net.companycompass.controller;
+
+import net.companycompass.config.db.SqlProfiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Serves the SQL statement statistics collected by the {@link SqlProfiler} as JSON.
+ */
+@RestController
+public class SqlProfileController {
+    private static final int MAX_LIMIT = 500;
+
+    private final SqlProfiler profiler;
+
+    @Autowired
+    public SqlProfileController(SqlProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Lists the statement shapes that cost the most since startup or the last reset.
+     *
+     * @param limit the number of shapes to return
+     * @param sort  the measure to rank by: "total" time, "count", "mean", "max" or "rows"
+     * @return the top shapes with their execution count, times in milliseconds, rows and the number of
+     * requests that repeated them
+     */
+    @GetMapping("/metrics/sql")
+    public List<SqlProfiler.StatementSummary> topStatements(@RequestParam(value = "limit", defaultValue = "20") int limit,
+                                                            @RequestParam(value = "sort", required = false) String sort) {
+        return profiler.top(Math.clamp(limit, 1, MAX_LIMIT), SqlProfiler.Order.fromParameter(sort));
+    }
+}
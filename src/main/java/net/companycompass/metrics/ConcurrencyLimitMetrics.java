@@ -0,0 +1,41 @@
+package net.companycompass.metrics;
+
+import jakarta.servlet.ServletContext;
+import net.companycompass.config.limit.AdaptiveConcurrencyLimiter;
+import net.companycompass.config.limit.ConcurrencyLimitFilter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the state of the {@link AdaptiveConcurrencyLimiter}, which the server installs before the
+ * application context starts and shares through the servlet context. Nothing is written when admission
+ * control is disabled.
+ */
+@Component
+public class ConcurrencyLimitMetrics implements MetricsCollector {
+    private static final String NAME = MetricsRegistry.PREFIX + "concurrency_";
+
+    private final ServletContext servletContext;
+
+    public ConcurrencyLimitMetrics(ServletContext servletContext) {
+        this.servletContext = servletContext;
+    }
+
+    @Override
+    public void collect(PrometheusTextWriter writer) {
+        if (!(servletContext.getAttribute(ConcurrencyLimitFilter.LIMITER_ATTRIBUTE) instanceof AdaptiveConcurrencyLimiter limiter)) {
+            return;
+        }
+        writer.family(NAME + "limit", "gauge", "Current adaptive limit of requests in flight");
+        writer.sample(NAME + "limit", "", limiter.getLimit());
+        writer.family(NAME + "in_flight", "gauge", "Requests currently admitted");
+        writer.sample(NAME + "in_flight", "", limiter.getInFlight());
+        writer.family(NAME + "queued", "gauge", "Requests waiting for a slot");
+        writer.sample(NAME + "queued", "", limiter.getQueued());
+        writer.family(NAME + "admitted_total", "counter", "Requests admitted");
+        writer.sample(NAME + "admitted_total", "", limiter.getAdmitted());
+        writer.family(NAME + "rejected_total", "counter", "Requests rejected with 503, by reason");
+        writer.sample(NAME + "rejected_total", PrometheusTextWriter.label("reason", "queue_full"), limiter.getRejectedQueueFull());
+        writer.sample(NAME + "rejected_total", PrometheusTextWriter.label("reason", "timeout"), limiter.getRejectedTimeout());
+        writer.sample(NAME + "rejected_total", PrometheusTextWriter.label("reason", "client_share"), limiter.getRejectedClientShare());
+    }
+}
@@ -0,0 +1,41 @@
+package net.companycompass.metrics;
+
+import net.companycompass.config.db.MonitoredDataSource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the connection pool statistics of the {@link MonitoredDataSource}.
+ */
+@Component
+public class DataSourceMetrics implements MetricsCollector {
+    private static final String NAME = MetricsRegistry.PREFIX + "datasource_";
+
+    private final MonitoredDataSource dataSource;
+
+    public DataSourceMetrics(MonitoredDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void collect(PrometheusTextWriter writer) {
+        gauge(writer, "connections_active", "Connections currently borrowed from the pool", dataSource.getActive());
+        gauge(writer, "connections_idle", "Connections currently idle in the pool", dataSource.getIdle());
+        gauge(writer, "connections_max", "Maximum number of connections the pool will open", dataSource.getMaxActive());
+        gauge(writer, "connections_pending", "Threads currently waiting for a connection", dataSource.getWaiting());
+        counter(writer, "connections_created_total", "Physical connections opened", dataSource.getCreated());
+        counter(writer, "acquisitions_total", "Successful connection acquisitions", dataSource.getAcquisitions());
+        counter(writer, "acquisition_failures_total", "Connection acquisitions that failed", dataSource.getAcquisitionFailures());
+        writer.family(NAME + "acquisition_wait_seconds_total", "counter", "Total time spent waiting for connections");
+        writer.sample(NAME + "acquisition_wait_seconds_total", "", dataSource.getTotalWaitMillis() / 1000.0);
+    }
+
+    private static void gauge(PrometheusTextWriter writer, String name, String help, long value) {
+        writer.family(NAME + name, "gauge", help);
+        writer.sample(NAME + name, "", value);
+    }
+
+    private static void counter(PrometheusTextWriter writer, String name, String help, long value) {
+        writer.family(NAME + name, "counter", help);
+        writer.sample(NAME + name, "", value);
+    }
+}
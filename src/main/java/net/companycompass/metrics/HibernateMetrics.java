@@ -0,0 +1,44 @@
+package net.companycompass.metrics;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the Hibernate session factory statistics: queries, entity loads and writes, flushes,
+ * sessions, transactions and prepared statements. Statistics must be enabled with
+ * {@code hibernate.generate_statistics}, otherwise every counter stays at zero.
+ */
+@Component
+public class HibernateMetrics implements MetricsCollector {
+    private static final String NAME = MetricsRegistry.PREFIX + "hibernate_";
+
+    private final Statistics statistics;
+
+    public HibernateMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void collect(PrometheusTextWriter writer) {
+        counter(writer, "queries_total", "Queries executed", statistics.getQueryExecutionCount());
+        writer.family(NAME + "query_max_seconds", "gauge", "Duration of the slowest query executed");
+        writer.sample(NAME + "query_max_seconds", "", statistics.getQueryExecutionMaxTime() / 1000.0);
+        counter(writer, "entity_loads_total", "Entities loaded", statistics.getEntityLoadCount());
+        counter(writer, "entity_fetches_total", "Entities fetched by a separate select", statistics.getEntityFetchCount());
+        counter(writer, "entity_inserts_total", "Entities inserted", statistics.getEntityInsertCount());
+        counter(writer, "entity_updates_total", "Entities updated", statistics.getEntityUpdateCount());
+        counter(writer, "entity_deletes_total", "Entities deleted", statistics.getEntityDeleteCount());
+        counter(writer, "flushes_total", "Session flushes", statistics.getFlushCount());
+        counter(writer, "sessions_opened_total", "Sessions opened", statistics.getSessionOpenCount());
+        counter(writer, "transactions_total", "Transactions completed", statistics.getTransactionCount());
+        counter(writer, "transactions_successful_total", "Transactions committed", statistics.getSuccessfulTransactionCount());
+        counter(writer, "statements_prepared_total", "JDBC statements prepared", statistics.getPrepareStatementCount());
+    }
+
+    private static void counter(PrometheusTextWriter writer, String name, String help, long value) {
+        writer.family(NAME + name, "counter", help);
+        writer.sample(NAME + name, "", value);
+    }
+}
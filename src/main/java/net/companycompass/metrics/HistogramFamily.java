@@ -0,0 +1,35 @@
+package net.companycompass.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A named group of {@link LatencyHistogram}s that differ only in their labels, such as the request
+ * latency of each handler. Callers look up their histogram once and keep it, so the label formatting
+ * and map lookup stay off the recording path.
+ */
+public final class HistogramFamily {
+    private final String name;
+    private final String help;
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+
+    HistogramFamily(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    /**
+     * Returns the histogram with the given labels, creating it on first use.
+     *
+     * @param labels the labels, formatted with {@link PrometheusTextWriter#label}
+     * @return the histogram for these labels
+     */
+    public LatencyHistogram histogram(String labels) {
+        return histograms.computeIfAbsent(labels, l -> new LatencyHistogram());
+    }
+
+    void writeTo(PrometheusTextWriter writer) {
+        writer.family(name, "histogram", help);
+        histograms.forEach((labels, histogram) -> histogram.writeTo(writer, name, labels));
+    }
+}
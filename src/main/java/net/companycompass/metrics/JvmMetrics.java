@@ -0,0 +1,51 @@
+package net.companycompass.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * JVM figures from the platform MXBeans: garbage collections and their pause time per collector,
+ * heap and non-heap memory, bytes allocated by platform threads and the number of live threads.
+ */
+@Component
+public class JvmMetrics implements MetricsCollector {
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Override
+    public void collect(PrometheusTextWriter writer) {
+        writer.family("jvm_gc_collection_seconds", "summary", "Time spent in garbage collections per collector");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            String labels = PrometheusTextWriter.label("gc", gc.getName());
+            writer.sample("jvm_gc_collection_seconds_count", labels, gc.getCollectionCount());
+            writer.sample("jvm_gc_collection_seconds_sum", labels, gc.getCollectionTime() / 1000.0);
+        }
+
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+        String heapLabel = PrometheusTextWriter.label("area", "heap");
+        String nonHeapLabel = PrometheusTextWriter.label("area", "nonheap");
+        writer.family("jvm_memory_bytes_used", "gauge", "Used bytes of a memory area");
+        writer.sample("jvm_memory_bytes_used", heapLabel, heap.getUsed());
+        writer.sample("jvm_memory_bytes_used", nonHeapLabel, nonHeap.getUsed());
+        writer.family("jvm_memory_bytes_committed", "gauge", "Committed bytes of a memory area");
+        writer.sample("jvm_memory_bytes_committed", heapLabel, heap.getCommitted());
+        writer.sample("jvm_memory_bytes_committed", nonHeapLabel, nonHeap.getCommitted());
+        writer.family("jvm_memory_bytes_max", "gauge", "Maximum bytes of a memory area, or -1 if unbounded");
+        writer.sample("jvm_memory_bytes_max", heapLabel, heap.getMax());
+        writer.sample("jvm_memory_bytes_max", nonHeapLabel, nonHeap.getMax());
+
+        if (threads instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemoryEnabled()) {
+            writer.family("jvm_allocated_bytes_total", "counter",
+                    "Bytes allocated on the heap by platform threads, including virtual threads mounted on them");
+            writer.sample("jvm_allocated_bytes_total", "", hotspot.getTotalThreadAllocatedBytes());
+        }
+        writer.family("jvm_threads_current", "gauge", "Live platform threads");
+        writer.sample("jvm_threads_current", "", threads.getThreadCount());
+    }
+}
@@ -0,0 +1,66 @@
+package net.companycompass.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram with fixed buckets from 0.5 ms to 10 s.
+ * Recording finds the bucket with a short linear scan and increments two {@link LongAdder}s, so it
+ * takes no lock and, once the adders have spread out under contention, allocates nothing. Bucket
+ * counts are kept per bucket and only made cumulative when the histogram is written.
+ */
+public final class LatencyHistogram {
+    private static final double[] BOUNDS_SECONDS =
+            {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS_SECONDS.length];
+    private static final String[] BOUND_LABELS = new String[BOUNDS_SECONDS.length + 1];
+
+    static {
+        for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (BOUNDS_SECONDS[i] * 1_000_000_000L);
+            BOUND_LABELS[i] = PrometheusTextWriter.label("le", Double.toString(BOUNDS_SECONDS[i]));
+        }
+        BOUND_LABELS[BOUNDS_SECONDS.length] = PrometheusTextWriter.label("le", "+Inf");
+    }
+
+    // One more than the bounds; the last bucket takes everything above 10 s
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one observation.
+     *
+     * @param nanos the observed duration in nanoseconds
+     */
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Writes the bucket, sum and count samples of this histogram.
+     *
+     * @param writer the exposition being written
+     * @param name   the metric family name
+     * @param labels the pre-formatted labels identifying this histogram
+     */
+    void writeTo(PrometheusTextWriter writer, String name, String labels) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            writer.sample(name + "_bucket", prefix + BOUND_LABELS[i], cumulative);
+        }
+        writer.sample(name + "_sum", labels, sumNanos.sum() / 1e9);
+        writer.sample(name + "_count", labels, cumulative);
+    }
+}
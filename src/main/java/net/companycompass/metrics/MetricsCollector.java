@@ -0,0 +1,15 @@
+package net.companycompass.metrics;
+
+/**
+ * A source of metrics that are read at scrape time rather than recorded per event, such as pool
+ * sizes, Hibernate statistics and JVM figures. Every bean implementing this interface is included
+ * in the output of the {@code /metrics} endpoint.
+ */
+public interface MetricsCollector {
+    /**
+     * Writes the current values of this collector's metrics.
+     *
+     * @param writer the exposition being written
+     */
+    void collect(PrometheusTextWriter writer);
+}
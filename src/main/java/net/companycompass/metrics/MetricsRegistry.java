@@ -0,0 +1,44 @@
+package net.companycompass.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Holds the histograms recorded by the application and assembles the scrape served by {@code /metrics}:
+ * every {@link HistogramFamily} followed by the output of every {@link MetricsCollector} bean.
+ */
+@Component
+public class MetricsRegistry {
+    public static final String PREFIX = "companycompass_";
+
+    private final Map<String, HistogramFamily> families = new ConcurrentSkipListMap<>();
+    private final ObjectProvider<MetricsCollector> collectors;
+
+    public MetricsRegistry(ObjectProvider<MetricsCollector> collectors) {
+        this.collectors = collectors;
+    }
+
+    /**
+     * Returns the histogram family with the given name, creating it on first use.
+     *
+     * @param name the metric name without the application prefix, e.g. "http_server_requests_seconds"
+     * @param help a one-line description, used when the family is created
+     * @return the family
+     */
+    public HistogramFamily histogramFamily(String name, String help) {
+        return families.computeIfAbsent(PREFIX + name, n -> new HistogramFamily(n, help));
+    }
+
+    /**
+     * @return all metrics in the Prometheus text exposition format
+     */
+    public String scrape() {
+        PrometheusTextWriter writer = new PrometheusTextWriter();
+        families.values().forEach(family -> family.writeTo(writer));
+        collectors.orderedStream().forEach(collector -> collector.collect(writer));
+        return writer.toString();
+    }
+}
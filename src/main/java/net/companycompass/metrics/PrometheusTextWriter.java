@@ -0,0 +1,73 @@
+package net.companycompass.metrics;
+
+/**
+ * Builds a scrape in the Prometheus text exposition format (version 0.0.4). Each metric family is
+ * opened with {@link #family} and followed by its samples; label sets are passed pre-formatted, as
+ * produced by {@link #label}.
+ */
+public class PrometheusTextWriter {
+    private final StringBuilder out = new StringBuilder(8192);
+
+    /**
+     * Writes the HELP and TYPE lines of a metric family.
+     *
+     * @param name the metric name
+     * @param type "counter", "gauge", "histogram" or "summary"
+     * @param help a one-line description
+     */
+    public void family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    public void sample(String name, String labels, long value) {
+        appendName(name, labels);
+        out.append(value).append('\n');
+    }
+
+    public void sample(String name, String labels, double value) {
+        appendName(name, labels);
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Formats a single label pair, escaping the value as the exposition format requires.
+     *
+     * @param name  the label name
+     * @param value the label value
+     * @return the pair, e.g. {@code handler="CompanyPageController.search"}
+     */
+    public static String label(String name, String value) {
+        StringBuilder pair = new StringBuilder(name.length() + value.length() + 3).append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> pair.append("\\\\");
+                case '"' -> pair.append("\\\"");
+                case '\n' -> pair.append("\\n");
+                default -> pair.append(c);
+            }
+        }
+        return pair.append('"').toString();
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void appendName(String name, String labels) {
+        out.append(name);
+        if (labels != null && !labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+    }
+}
@@ -0,0 +1,55 @@
+package net.companycompass.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the latency of every controller handler method, from the handler call until the view has
+ * been rendered, into a histogram labelled with the controller and method name.
+ */
+@Component
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+    private static final String START_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".start";
+
+    private final HistogramFamily latencies;
+    private final Map<Method, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public RequestMetricsInterceptor(MetricsRegistry registry) {
+        this.latencies = registry.histogramFamily("http_server_requests_seconds",
+                "Latency of requests per controller handler, including view rendering");
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (handler instanceof HandlerMethod) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        if (handler instanceof HandlerMethod handlerMethod && request.getAttribute(START_ATTRIBUTE) instanceof Long start) {
+            histogram(handlerMethod).record(System.nanoTime() - start);
+        }
+    }
+
+    private LatencyHistogram histogram(HandlerMethod handlerMethod) {
+        LatencyHistogram histogram = histograms.get(handlerMethod.getMethod());
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(handlerMethod.getMethod(), method -> latencies.histogram(
+                    PrometheusTextWriter.label("handler", handlerMethod.getBeanType().getSimpleName() + "." + method.getName())));
+        }
+        return histogram;
+    }
+}
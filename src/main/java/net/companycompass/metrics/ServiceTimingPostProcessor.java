@@ -0,0 +1,91 @@
+package net.companycompass.metrics;
+
+import net.companycompass.service.CompanyService;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.scope.ScopedProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.lang.NonNull;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every {@link CompanyService} method of every service implementation, so that e.g. the caching
+ * layer and the database behind it are reported separately. Beans that are already proxied, such as the
+ * transactional database service, get the timing advice added in front of their existing advice, so the
+ * measurement includes the commit; other implementations are wrapped in a class-based proxy. Session-scoped
+ * services are timed on their scoped proxy, so no proxy is built per session.
+ */
+public class ServiceTimingPostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<MetricsRegistry> registry;
+
+    public ServiceTimingPostProcessor(ObjectProvider<MetricsRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+        // A scoped target is created per session; it is timed once through its scoped proxy instead
+        if (!(bean instanceof CompanyService) || ScopedProxyUtils.isScopedTarget(beanName)) {
+            return bean;
+        }
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new CompanyServicePointcut(),
+                new TimingInterceptor(registry.getObject(), targetClass.getSimpleName()));
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvisor(0, advisor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(advisor);
+        return proxyFactory.getProxy(targetClass.getClassLoader());
+    }
+
+    private static final class CompanyServicePointcut extends StaticMethodMatcherPointcut {
+        @Override
+        public boolean matches(@NonNull Method method, @NonNull Class<?> targetClass) {
+            return ClassUtils.hasMethod(CompanyService.class, method.getName(), method.getParameterTypes());
+        }
+    }
+
+    private static final class TimingInterceptor implements MethodInterceptor {
+        private final HistogramFamily timings;
+        private final String service;
+        private final Map<Method, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+        private TimingInterceptor(MetricsRegistry registry, String service) {
+            this.timings = registry.histogramFamily("service_call_seconds",
+                    "Duration of CompanyService calls per implementation and method");
+            this.service = PrometheusTextWriter.label("service", service);
+        }
+
+        @Override
+        public Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                histogram(invocation.getMethod()).record(System.nanoTime() - start);
+            }
+        }
+
+        private LatencyHistogram histogram(Method method) {
+            LatencyHistogram histogram = histograms.get(method);
+            if (histogram == null) {
+                histogram = histograms.computeIfAbsent(method, m ->
+                        timings.histogram(service + "," + PrometheusTextWriter.label("method", m.getName())));
+            }
+            return histogram;
+        }
+    }
+}
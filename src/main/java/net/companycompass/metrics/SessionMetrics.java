@@ -0,0 +1,16 @@
+package net.companycompass.metrics;
+
+import net.companycompass.config.demo.ActiveUserStore;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the number of open HTTP sessions tracked by {@link ActiveUserStore}.
+ */
+@Component
+public class SessionMetrics implements MetricsCollector {
+    @Override
+    public void collect(PrometheusTextWriter writer) {
+        writer.family(MetricsRegistry.PREFIX + "sessions_active", "gauge", "HTTP sessions currently open");
+        writer.sample(MetricsRegistry.PREFIX + "sessions_active", "", ActiveUserStore.activeSessions.get());
+    }
+}
@@ -0,0 +1,42 @@
+package net.companycompass.metrics;
+
+import net.companycompass.service.WriteBehindCompanyService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the queue of the {@link WriteBehindCompanyService}. Nothing is written unless the
+ * asynchronous write mode is enabled.
+ */
+@Component
+public class WriteBehindMetrics implements MetricsCollector {
+    private static final String NAME = MetricsRegistry.PREFIX + "write_behind_";
+
+    private final ObjectProvider<WriteBehindCompanyService> writeBehind;
+
+    public WriteBehindMetrics(ObjectProvider<WriteBehindCompanyService> writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    @Override
+    public void collect(PrometheusTextWriter writer) {
+        WriteBehindCompanyService queue = writeBehind.getIfAvailable();
+        if (queue == null) {
+            return;
+        }
+        writer.family(NAME + "pending", "gauge", "Changes queued and not yet being written");
+        writer.sample(NAME + "pending", "", queue.getPendingWrites());
+        writer.family(NAME + "in_flight", "gauge", "Changes of the batch currently being written");
+        writer.sample(NAME + "in_flight", "", queue.getInFlightWrites());
+        writer.family(NAME + "enqueued_total", "counter", "Writes accepted into the queue");
+        writer.sample(NAME + "enqueued_total", "", queue.getEnqueuedWrites());
+        writer.family(NAME + "coalesced_total", "counter", "Writes merged into a queued change of the same company");
+        writer.sample(NAME + "coalesced_total", "", queue.getCoalescedWrites());
+        writer.family(NAME + "batches_total", "counter", "Batches committed");
+        writer.sample(NAME + "batches_total", "", queue.getFlushedBatches());
+        writer.family(NAME + "written_total", "counter", "Changes committed");
+        writer.sample(NAME + "written_total", "", queue.getFlushedWrites());
+        writer.family(NAME + "failed_total", "counter", "Changes dropped after failing twice");
+        writer.sample(NAME + "failed_total", "", queue.getFailedWrites());
+    }
+}
@@ -5,19 +5,29 @@ import jakarta.persistence.*;
 /**
  * Represents a company entity mapped to the "companies" table in the database.
  * This class serves as a model for storing and retrieving company-related information.
- * It includes fields for the company's unique identifier, name, and location.
+ * It includes fields for the company's unique identifier, name, location and version.
  */
 @Entity
 @Table(name = "companies")
 public class Company {
+    /**
+     * The number of ids reserved per value read from the "companies_seq" sequence. Each sequence value
+     * is the highest id of its block, the interpretation of Hibernate's pooled optimizer, so any other
+     * writer that reserves ids from the sequence must use the same block size.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     /**
      * Represents the unique identifier for the Company entity.
      * This field is annotated with @Id and @GeneratedValue to indicate that it serves
-     * as the primary key, and its values are generated automatically using the
-     * IDENTITY strategy by the persistence provider.
+     * as the primary key, and its values are generated automatically from the
+     * "companies_seq" database sequence. The sequence is read in blocks of 50 ids,
+     * which lets the persistence provider assign ids without a round trip per insert
+     * and group inserts into JDBC batches.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "companies_seq")
+    @SequenceGenerator(name = "companies_seq", sequenceName = "companies_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -29,11 +39,32 @@ public class Company {
 
     /**
      * Represents the location of the company.
-     * This field is mapped to the "location" column in the "companies" table.
+     * This field is mapped to the "location" column in the "companies" table and cannot be null.
      */
-    @Column(name = "location")
+    @Column(name = "location", nullable = false)
     private String location;
 
+    /**
+     * The lower-case forms of the name and location that {@link CompanyFilter} matches against. The
+     * database computes these columns from "name" and "location", so they are never written and have no
+     * accessors; they are mapped only so that the repository's filter queries can refer to them.
+     */
+    @Column(name = "name_key", insertable = false, updatable = false)
+    private String nameKey;
+
+    @Column(name = "location_key", insertable = false, updatable = false)
+    private String locationKey;
+
+    /**
+     * Represents the optimistic locking version of the company.
+     * This field is mapped to the "version" column, which starts at 0 and is incremented by every
+     * update, so a write based on an outdated copy of the company can be detected and refused.
+     * It is null for a company that has not been stored yet.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /**
      * Default constructor for the Company class.
      * Initializes a new instance of the Company class with no properties set.
@@ -54,6 +85,22 @@ public class Company {
         this.location = location;
     }
 
+    /**
+     * Constructs a Company from the columns of a stored row, as read by the repository's projection
+     * queries. The values were sanitized when they were written and are taken as they are.
+     *
+     * @param id       the unique identifier of the company
+     * @param name     the name of the company
+     * @param location the location of the company
+     * @param version  the version of the row
+     */
+    public Company(Long id, String name, String location, Long version) {
+        this.id = id;
+        this.name = name;
+        this.location = location;
+        this.version = version;
+    }
+
     /**
      * Retrieves the unique identifier of the company.
      *
@@ -108,6 +155,24 @@ public class Company {
         this.location = sanitize(location);
     }
 
+    /**
+     * Retrieves the version of the company.
+     *
+     * @return the version the company was read at, or null if it has not been stored yet
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the company, e.g. the version an edit form was rendered with.
+     *
+     * @param version the version to be set
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     private String sanitize(String input) {
         if (input == null) {
             return null;
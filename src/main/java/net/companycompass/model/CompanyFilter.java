@@ -0,0 +1,80 @@
+package net.companycompass.model;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * A case-insensitive filter of the company listing: the companies in one location, the companies whose
+ * name starts with a prefix, or both. Values are held in the lower-case form of {@link #key(String)},
+ * the form the "location_key" and "name_key" columns store, so that the database answers a filter with
+ * an index seek. Filtered listings are ordered by {@link #ORDER}, the order of those indexes.
+ *
+ * @param location   the lower-case location to match exactly, or null for any location
+ * @param namePrefix the lower-case start of the name, or null for any name
+ */
+public record CompanyFilter(String location, String namePrefix) {
+    /**
+     * The filter that matches every company.
+     */
+    public static final CompanyFilter NONE = new CompanyFilter(null, null);
+
+    /**
+     * The order of a filtered listing: the name ignoring case, then the id.
+     */
+    public static final Comparator<Company> ORDER = Comparator
+            .comparing((Company c) -> key(c.getName()), Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Company::getId);
+
+    /**
+     * Builds a filter from request parameters. Blank values do not filter.
+     *
+     * @param location   the location, in any case, or null
+     * @param namePrefix the start of the name, in any case, or null
+     * @return the filter, {@link #NONE} if neither value filters
+     */
+    public static CompanyFilter of(String location, String namePrefix) {
+        String locationKey = location == null || location.isBlank() ? null : key(location.trim());
+        String prefixKey = namePrefix == null || namePrefix.isBlank() ? null : key(namePrefix.trim());
+        return locationKey == null && prefixKey == null ? NONE : new CompanyFilter(locationKey, prefixKey);
+    }
+
+    /**
+     * Returns the lower-case form values are compared in. Stored names and locations are ASCII, so this
+     * matches the database's LOWER function.
+     *
+     * @param value a name or location, or null
+     * @return the value in lower case, or null
+     */
+    public static String key(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns whether this filter matches every company.
+     */
+    public boolean isEmpty() {
+        return location == null && namePrefix == null;
+    }
+
+    /**
+     * Returns whether a company passes this filter.
+     *
+     * @param company the company
+     * @return true if its location and name match
+     */
+    public boolean matches(Company company) {
+        return (location == null || location.equals(key(company.getLocation())))
+                && (namePrefix == null || (company.getName() != null && key(company.getName()).startsWith(namePrefix)));
+    }
+
+    /**
+     * Returns the LIKE pattern of the name prefix, with the wildcards of the prefix escaped by a
+     * backslash; "%" when any name matches.
+     */
+    public String namePattern() {
+        if (namePrefix == null) {
+            return "%";
+        }
+        return namePrefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,71 @@
+package net.companycompass.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single page of the company listing located with a keyset (seek) cursor.
+ * Cursors are company ids: the next page starts after the id of the last row of this
+ * page, and the previous page ends before the id of the first row.
+ *
+ * @param companies   the rows of this page in display order
+ * @param sort        the ordering the page was read with
+ * @param size        the requested page size
+ * @param hasPrevious whether rows exist before the first row of this page
+ * @param hasNext     whether rows exist after the last row of this page
+ */
+public record CompanyPage(List<Company> companies, CompanySort sort, int size,
+                          boolean hasPrevious, boolean hasNext) {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}. The extra row, if present,
+     * only signals that another page exists in the direction of the read and is dropped.
+     *
+     * @param rows      the fetched rows, in read order (descending when reading backwards)
+     * @param sort      the ordering used for the read
+     * @param size      the requested page size
+     * @param backward  true if the rows were read backwards from a "before" cursor
+     * @param hasCursor true if the read started from a cursor rather than from the start of the list
+     * @return the assembled page with rows in display order
+     */
+    public static CompanyPage of(List<Company> rows, CompanySort sort, int size, boolean backward, boolean hasCursor) {
+        boolean hasMore = rows.size() > size;
+        List<Company> page = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+        if (backward) {
+            Collections.reverse(page);
+            return new CompanyPage(page, sort, size, hasMore, hasCursor);
+        }
+        return new CompanyPage(page, sort, size, hasCursor, hasMore);
+    }
+
+    /**
+     * Clamps a requested page size to the supported range.
+     *
+     * @param size the requested size
+     * @return a size between 1 and {@link #MAX_SIZE}
+     */
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * Returns the cursor that locates the previous page.
+     *
+     * @return the id of the first row, or null if the page is empty
+     */
+    public Long previousCursor() {
+        return companies.isEmpty() ? null : companies.get(0).getId();
+    }
+
+    /**
+     * Returns the cursor that locates the next page.
+     *
+     * @return the id of the last row, or null if the page is empty
+     */
+    public Long nextCursor() {
+        return companies.isEmpty() ? null : companies.get(companies.size() - 1).getId();
+    }
+}
@@ -0,0 +1,62 @@
+package net.companycompass.model;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * Enumerates the orderings supported by the paginated company listing.
+ * Every ordering uses the company id as a tie-breaker so that the combination of
+ * sort key and id is unique, which is what allows a page to be located by seeking
+ * past the id of the last row seen instead of counting an offset.
+ */
+public enum CompanySort {
+    ID(Company::getId),
+    NAME(Company::getName),
+    LOCATION(Company::getLocation);
+
+    private final Function<Company, ? extends Comparable<?>> key;
+
+    CompanySort(Function<Company, ? extends Comparable<?>> key) {
+        this.key = key;
+    }
+
+    /**
+     * Returns the comparator matching the database ordering of this sort,
+     * i.e. the sort key ascending followed by the id ascending.
+     *
+     * @return a comparator ordering companies the same way the keyset queries do
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Comparator<Company> comparator() {
+        Comparator<Company> byKey = Comparator.comparing(c -> (Comparable) key.apply(c),
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        return byKey.thenComparing(Company::getId);
+    }
+
+    /**
+     * Resolves a sort from a request parameter, falling back to {@link #ID}
+     * when the value is missing or not recognised.
+     *
+     * @param value the raw parameter value, e.g. "name" or "location"
+     * @return the matching sort, never null
+     */
+    public static CompanySort fromParameter(String value) {
+        if (value != null) {
+            for (CompanySort sort : values()) {
+                if (sort.name().equalsIgnoreCase(value.trim())) {
+                    return sort;
+                }
+            }
+        }
+        return ID;
+    }
+
+    /**
+     * Returns the lower-case form used in request parameters and links.
+     *
+     * @return the parameter value for this sort
+     */
+    public String getParameter() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,10 @@
+package net.companycompass.model;
+
+/**
+ * One entry of the location facet of the company listing: a location and how many companies it has.
+ *
+ * @param location the location, in one of the spellings its companies use
+ * @param count    the number of companies in it
+ */
+public record LocationFacet(String location, long count) {
+}
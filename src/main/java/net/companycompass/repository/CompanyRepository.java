@@ -1,9 +1,21 @@
 package net.companycompass.repository;
 
+import jakarta.persistence.QueryHint;
 import net.companycompass.model.Company;
+import net.companycompass.model.LocationFacet;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 /**
  * Repository interface for managing {@link Company} entities.
  * This interface provides CRUD operations and additional data access
@@ -13,11 +25,150 @@ import org.springframework.stereotype.Repository;
  * - Save or update a company
  * - Retrieve companies by their ID
  * - Retrieve all companies
+ * - Retrieve a page of companies by seeking past a cursor row
+ * - Retrieve a page of the companies in a location or with a name prefix, ignoring case
+ * - Stream all companies through a forward-only cursor
+ * - Update or delete a company in a single statement, optionally only at a given version
  * - Delete companies by their ID
  * This repository is annotated with {@code @Repository}, enabling Spring to detect
  * and manage it as a bean and to provide exception translation into Spring's
  * data-access exceptions.
+ * The keyset queries order by the sort column followed by the id and compare against the
+ * cursor row's values, so each page is an index range scan of at most {@code limit} rows.
+ * The list, page and stream queries return read-only projections: {@link Company} instances built
+ * from the selected columns that are never attached to the persistence context, so Hibernate keeps
+ * no entity snapshot of them and never dirty-checks them.
  */
 @Repository
 public interface CompanyRepository extends JpaRepository<Company, Long> {
+    /**
+     * The select clause shared by the projection queries.
+     */
+    String PROJECTION = "select new net.companycompass.model.Company(c.id, c.name, c.location, c.version) from Company c ";
+
+    /**
+     * The name prefix condition of the filter queries: a LIKE pattern with a fixed start, which the
+     * database turns into a range on the name_key index, see {@link net.companycompass.model.CompanyFilter#namePattern()}.
+     */
+    String NAME_PREFIX = "c.nameKey like :pattern escape '\\' ";
+
+    /**
+     * Streams every company in id order through a forward-only, read-only cursor that fetches
+     * {@code 1000} rows per round trip. The stream must be consumed and closed inside a transaction.
+     * The rows are projections, so memory use does not grow with the number of rows read.
+     *
+     * @return a lazily populated stream of all companies
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(PROJECTION + "order by c.id")
+    Stream<Company> streamAllByOrderByIdAsc();
+
+    @Query(PROJECTION + "order by c.id")
+    List<Company> findAllProjectedByOrderByIdAsc();
+
+    /**
+     * Replaces the name and location of a company and increments its version in one statement,
+     * without loading the company first.
+     *
+     * @param id       the id of the company
+     * @param name     the new name
+     * @param location the new location
+     * @param version  the version the change is based on, or null to update whatever version is stored
+     * @return 1 if the company was updated, or 0 if it does not exist or is no longer at that version
+     */
+    @Modifying
+    @Query("update Company c set c.name = :name, c.location = :location, c.version = c.version + 1 " +
+            "where c.id = :id and (:version is null or c.version = :version)")
+    int updateIfCurrent(@Param("id") Long id, @Param("name") String name, @Param("location") String location,
+                        @Param("version") Long version);
+
+    /**
+     * Deletes a company in one statement, without loading it first.
+     *
+     * @param id      the id of the company
+     * @param version the version the deletion is based on, or null to delete whatever version is stored
+     * @return 1 if the company was deleted, or 0 if it does not exist or is no longer at that version
+     */
+    @Modifying
+    @Query("delete from Company c where c.id = :id and (:version is null or c.version = :version)")
+    int deleteIfCurrent(@Param("id") Long id, @Param("version") Long version);
+
+    @Query("select c.version from Company c where c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query(PROJECTION + "order by c.id asc")
+    List<Company> findByOrderByIdAsc(Limit limit);
+
+    @Query(PROJECTION + "where c.id > :id order by c.id asc")
+    List<Company> findByIdGreaterThanOrderByIdAsc(@Param("id") Long id, Limit limit);
+
+    @Query(PROJECTION + "where c.id < :id order by c.id desc")
+    List<Company> findByIdLessThanOrderByIdDesc(@Param("id") Long id, Limit limit);
+
+    @Query(PROJECTION + "order by c.name asc, c.id asc")
+    List<Company> findByOrderByNameAscIdAsc(Limit limit);
+
+    @Query(PROJECTION + "where c.name > :name or (c.name = :name and c.id > :id) " +
+            "order by c.name asc, c.id asc")
+    List<Company> findNamePageAfter(@Param("name") String name, @Param("id") Long id, Limit limit);
+
+    @Query(PROJECTION + "where c.name < :name or (c.name = :name and c.id < :id) " +
+            "order by c.name desc, c.id desc")
+    List<Company> findNamePageBefore(@Param("name") String name, @Param("id") Long id, Limit limit);
+
+    @Query(PROJECTION + "order by c.location asc, c.id asc")
+    List<Company> findByOrderByLocationAscIdAsc(Limit limit);
+
+    @Query(PROJECTION + "where c.location > :location or (c.location = :location and c.id > :id) " +
+            "order by c.location asc, c.id asc")
+    List<Company> findLocationPageAfter(@Param("location") String location, @Param("id") Long id, Limit limit);
+
+    @Query(PROJECTION + "where c.location < :location or (c.location = :location and c.id < :id) " +
+            "order by c.location desc, c.id desc")
+    List<Company> findLocationPageBefore(@Param("location") String location, @Param("id") Long id, Limit limit);
+
+    /*
+     * Filtered pages, in name_key and id order. Names come from the idx_companies_name_key_id index, and a
+     * location additionally fixes the leading column of idx_companies_location_key_name_key_id. The
+     * keyset queries also bound name_key by the cursor row's key, so the seek starts at the cursor.
+     */
+
+    @Query(PROJECTION + "where " + NAME_PREFIX + "order by c.nameKey asc, c.id asc")
+    List<Company> findByNameKeyLike(@Param("pattern") String pattern, Limit limit);
+
+    @Query(PROJECTION + "where " + NAME_PREFIX + "and c.nameKey >= :name " +
+            "and (c.nameKey > :name or (c.nameKey = :name and c.id > :id)) order by c.nameKey asc, c.id asc")
+    List<Company> findNameKeyPageAfter(@Param("pattern") String pattern, @Param("name") String name,
+                                       @Param("id") Long id, Limit limit);
+
+    @Query(PROJECTION + "where " + NAME_PREFIX + "and c.nameKey <= :name " +
+            "and (c.nameKey < :name or (c.nameKey = :name and c.id < :id)) order by c.nameKey desc, c.id desc")
+    List<Company> findNameKeyPageBefore(@Param("pattern") String pattern, @Param("name") String name,
+                                        @Param("id") Long id, Limit limit);
+
+    @Query(PROJECTION + "where c.locationKey = :location and " + NAME_PREFIX + "order by c.nameKey asc, c.id asc")
+    List<Company> findByLocationKeyAndNameKeyLike(@Param("location") String location, @Param("pattern") String pattern,
+                                                  Limit limit);
+
+    @Query(PROJECTION + "where c.locationKey = :location and " + NAME_PREFIX + "and c.nameKey >= :name " +
+            "and (c.nameKey > :name or (c.nameKey = :name and c.id > :id)) order by c.nameKey asc, c.id asc")
+    List<Company> findLocationKeyPageAfter(@Param("location") String location, @Param("pattern") String pattern,
+                                           @Param("name") String name, @Param("id") Long id, Limit limit);
+
+    @Query(PROJECTION + "where c.locationKey = :location and " + NAME_PREFIX + "and c.nameKey <= :name " +
+            "and (c.nameKey < :name or (c.nameKey = :name and c.id < :id)) order by c.nameKey desc, c.id desc")
+    List<Company> findLocationKeyPageBefore(@Param("location") String location, @Param("pattern") String pattern,
+                                            @Param("name") String name, @Param("id") Long id, Limit limit);
+
+    /**
+     * Counts the companies per location, ignoring case, by grouping the
+     * idx_companies_location_key_name_key_id index. Each location is named by the first of its spellings
+     * in alphabetical order.
+     */
+    @Query("select new net.companycompass.model.LocationFacet(min(c.location), count(c)) from Company c " +
+            "where c.locationKey is not null group by c.locationKey order by count(c) desc, c.locationKey asc")
+    List<LocationFacet> findLocationFacets(Limit limit);
 }
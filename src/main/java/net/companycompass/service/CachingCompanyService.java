@@ -0,0 +1,223 @@
+package net.companycompass.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.companycompass.model.Company;
+import net.companycompass.model.CompanyFilter;
+import net.companycompass.model.CompanyPage;
+import net.companycompass.model.CompanySort;
+import net.companycompass.model.LocationFacet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through caching layer in front of {@link DatabaseCompanyService}.
+ * Companies are cached by id in a size-bounded Caffeine cache (W-TinyLFU eviction), and the full
+ * list and the keyset pages, sorted or filtered, are cached as immutable snapshots. Writes go straight
+ * to the database and invalidate once the {@link CompanyChangedEvent} of the committed write arrives:
+ * the entry of the affected id is evicted, and the list and page snapshots are retired by moving a
+ * generation counter that is part of their cache key, so a snapshot read concurrently with a write can
+ * never be served after the write has committed.
+ * Cached {@link Company} instances are shared between callers and must be treated as read-only.
+ * Hit, miss and eviction counters are exported as the JMX MBean
+ * {@code net.companycompass:type=CompanyCache}.
+ */
+@Service
+@Profile("local")
+@ManagedResource(objectName = "net.companycompass:type=CompanyCache",
+        description = "Company read-through cache statistics")
+public class CachingCompanyService implements CompanyService {
+    private final CompanyService delegate;
+    private final Cache<Long, Company> companies;
+    private final Cache<PageKey, CompanyPage> pages;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile ListSnapshot snapshot;
+    private final LongAdder listHits = new LongAdder();
+    private final LongAdder listMisses = new LongAdder();
+
+    @Autowired
+    public CachingCompanyService(@Qualifier("databaseCompanyService") CompanyService delegate,
+                                 @Value("${cache.companies.maxEntries:10000}") long maxEntries,
+                                 @Value("${cache.companies.maxPages:1000}") long maxPages) {
+        this.delegate = delegate;
+        this.companies = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxPages)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public List<Company> getCompanies() {
+        long current = generation.get();
+        ListSnapshot cached = snapshot;
+        if (cached != null && cached.generation() == current) {
+            listHits.increment();
+            return cached.companies();
+        }
+        listMisses.increment();
+        List<Company> loaded = List.copyOf(delegate.getCompanies());
+        if (generation.get() == current) {
+            snapshot = new ListSnapshot(current, loaded);
+        }
+        return loaded;
+    }
+
+    @Override
+    public CompanyPage getCompanyPage(CompanySort sort, Long after, Long before, int size) {
+        PageKey key = new PageKey(generation.get(), sort, CompanyFilter.NONE, after, before, size);
+        return pages.get(key, k -> delegate.getCompanyPage(sort, after, before, size));
+    }
+
+    @Override
+    public CompanyPage getFilteredPage(CompanyFilter filter, Long after, Long before, int size) {
+        PageKey key = new PageKey(generation.get(), CompanySort.NAME, filter, after, before, size);
+        return pages.get(key, k -> delegate.getFilteredPage(filter, after, before, size));
+    }
+
+    @Override
+    public List<Company> searchCompanies(String query, int limit) {
+        return delegate.searchCompanies(query, limit);
+    }
+
+    @Override
+    public List<LocationFacet> getLocationFacets(int limit) {
+        return delegate.getLocationFacets(limit);
+    }
+
+    @Override
+    public Company getCompanyById(Long id) {
+        return companies.get(id, delegate::getCompanyById);
+    }
+
+    /**
+     * Reads the version of a cached company, and otherwise asks the database for the version alone
+     * without caching anything.
+     */
+    @Override
+    public Long getCompanyVersion(Long id) {
+        Company cached = companies.getIfPresent(id);
+        return cached != null ? cached.getVersion() : delegate.getCompanyVersion(id);
+    }
+
+    @Override
+    public void addCompany(Company company) {
+        delegate.addCompany(company);
+    }
+
+    @Override
+    public void updateCompany(Company company) {
+        delegate.updateCompany(company);
+    }
+
+    @Override
+    public void deleteCompany(Long id, Long version) {
+        delegate.deleteCompany(id, version);
+    }
+
+    @Override
+    public long getDataVersion() {
+        return delegate.getDataVersion();
+    }
+
+    /**
+     * Invalidates what a committed write made stale: the entry of the affected id and every
+     * list and page snapshot. Writes that bypass this service, such as bulk imports, publish the
+     * same event and are invalidated the same way. Runs before the data version moves, so a caller
+     * that sees the new version never reads a snapshot from before the write.
+     *
+     * @param event the change that was written
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCompanyChanged(CompanyChangedEvent event) {
+        companies.invalidate(event.id());
+        retireSnapshots();
+    }
+
+    /**
+     * Drops every cached entry, list and page, e.g. after the table was changed outside the application.
+     */
+    @ManagedOperation(description = "Discard all cached companies, lists and pages")
+    public void clear() {
+        companies.invalidateAll();
+        retireSnapshots();
+    }
+
+    private void retireSnapshots() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    @ManagedAttribute(description = "Companies currently cached by id")
+    public long getEntryCount() {
+        return companies.estimatedSize();
+    }
+
+    @ManagedAttribute(description = "Lookups by id served from the cache")
+    public long getEntryHits() {
+        return companies.stats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Lookups by id that went to the database")
+    public long getEntryMisses() {
+        return companies.stats().missCount();
+    }
+
+    @ManagedAttribute(description = "Companies evicted to stay within the size bound")
+    public long getEntryEvictions() {
+        return companies.stats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "Fraction of lookups by id served from the cache")
+    public double getEntryHitRate() {
+        return companies.stats().hitRate();
+    }
+
+    @ManagedAttribute(description = "Listing pages served from the cache")
+    public long getPageHits() {
+        return pages.stats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Listing pages that went to the database")
+    public long getPageMisses() {
+        return pages.stats().missCount();
+    }
+
+    @ManagedAttribute(description = "Listing pages evicted to stay within the size bound")
+    public long getPageEvictions() {
+        return pages.stats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "Full list reads served from the cached snapshot")
+    public long getListHits() {
+        return listHits.sum();
+    }
+
+    @ManagedAttribute(description = "Full list reads that went to the database")
+    public long getListMisses() {
+        return listMisses.sum();
+    }
+
+    private record ListSnapshot(long generation, List<Company> companies) {
+    }
+
+    private record PageKey(long generation, CompanySort sort, CompanyFilter filter, Long after, Long before, int size) {
+    }
+}
@@ -0,0 +1,344 @@
+package net.companycompass.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes committed company changes to subscribers as Server-Sent Events.
+ *
+ * <p>Every {@link CompanyChangedEvent} is numbered and appended to a ring buffer of the last
+ * {@code companies.feed.bufferSize} changes; publishing never waits for a subscriber. Each subscriber has
+ * a virtual thread of its own that sends the changes past its position in the ring, so the only memory
+ * a subscriber holds is that position. A subscriber that falls so far behind that the changes it has not
+ * been sent yet were overwritten is dropped rather than buffered for. Like any other disconnected client
+ * it reconnects with the {@code Last-Event-ID} of the last change it received and is sent the changes
+ * after it that are still in the ring. A client whose position is no longer in the ring, for example
+ * after a restart, is sent a {@code reset} event instead and should reload what it shows.
+ *
+ * <p>While there are no changes, a comment is sent every {@code companies.feed.heartbeatMillis}, which
+ * keeps proxies from closing an idle stream and detects clients that went away. Streams end after
+ * {@code companies.feed.maxStreamMillis}, and at most {@code companies.feed.maxSubscribers} are open at
+ * once. Numbering starts at the startup time in milliseconds, as the data version does, so the ids of an
+ * earlier run of the application are not mistaken for current ones. Feed statistics are exported as the
+ * JMX MBean {@code net.companycompass:type=CompanyChangeFeed}.
+ */
+@Component
+@Profile("local")
+@ManagedResource(objectName = "net.companycompass:type=CompanyChangeFeed",
+        description = "Server-Sent Events feed of company changes")
+public class CompanyChangeFeed {
+    private static final Logger logger = LoggerFactory.getLogger(CompanyChangeFeed.class);
+
+    private final Change[] ring;
+    private final int maxSubscribers;
+    private final long heartbeatNanos;
+    private final long maxStreamMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final long firstId = System.currentTimeMillis();
+    private long lastId = firstId;
+    private boolean running = true;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public CompanyChangeFeed(@Value("${companies.feed.bufferSize:1000}") int bufferSize,
+                             @Value("${companies.feed.maxSubscribers:100}") int maxSubscribers,
+                             @Value("${companies.feed.heartbeatMillis:15000}") long heartbeatMillis,
+                             @Value("${companies.feed.maxStreamMillis:1800000}") long maxStreamMillis) {
+        this.ring = new Change[bufferSize];
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+        this.maxStreamMillis = maxStreamMillis;
+    }
+
+    /**
+     * Appends a committed change to the ring and wakes the subscribers.
+     *
+     * @param event the change that was written
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCompanyChanged(CompanyChangedEvent event) {
+        lock.lock();
+        try {
+            lastId++;
+            ring[slot(lastId)] = new Change(lastId, event);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        published.increment();
+    }
+
+    /**
+     * Opens a stream of the changes committed from now on, or after a change the client has already seen.
+     *
+     * @param lastEventId the {@code Last-Event-ID} sent by a reconnecting client, or null
+     * @return the emitter the changes are sent through
+     * @throws RejectedExecutionException if the maximum number of streams is open or the feed is stopping
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new RejectedExecutionException("The change feed already has " + maxSubscribers + " subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(maxStreamMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(ex -> subscriber.close());
+
+        lock.lock();
+        try {
+            if (!running) {
+                subscribers.decrementAndGet();
+                throw new RejectedExecutionException("The change feed is stopping");
+            }
+            subscriber.position = lastId;
+            Long requested = parseId(lastEventId);
+            if (requested != null) {
+                if (requested >= oldestId() - 1 && requested <= lastId) {
+                    subscriber.position = requested;
+                    resumed.increment();
+                } else {
+                    subscriber.reset = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        Thread.ofVirtual().name("company-change-feed").start(() -> stream(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Sends the changes past the subscriber's position until the stream ends, with a heartbeat whenever
+     * none arrive for a while.
+     */
+    private void stream(Subscriber subscriber) {
+        SseEmitter emitter = subscriber.emitter;
+        try {
+            emitter.send(SseEmitter.event().comment("connected").reconnectTime(TimeUnit.SECONDS.toMillis(3)));
+            if (subscriber.reset) {
+                resets.increment();
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(subscriber.position))
+                        .name("reset")
+                        .data(Map.of("lastEventId", subscriber.position), MediaType.APPLICATION_JSON));
+            }
+            while (true) {
+                List<Change> changes = awaitChanges(subscriber);
+                if (changes == null) {
+                    complete(emitter);
+                    return;
+                }
+                if (changes.isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+                for (Change change : changes) {
+                    emitter.send(change.toSse());
+                }
+            }
+        } catch (SlowSubscriberException ex) {
+            dropped.increment();
+            logger.debug("Dropped a change feed subscriber that fell {} changes behind", ring.length);
+            complete(emitter);
+        } catch (IOException | IllegalStateException ex) {
+            // The client went away or the stream timed out; the container completes the request
+        } finally {
+            subscriber.close();
+            subscribers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Ends a stream. While the application stops, the container may no longer dispatch the completion,
+     * and closes the connection itself.
+     */
+    private static void complete(SseEmitter emitter) {
+        try {
+            emitter.complete();
+        } catch (RuntimeException ex) {
+            logger.debug("Could not complete a change feed stream: {}", ex.toString());
+        }
+    }
+
+    /**
+     * Waits for changes past the subscriber's position, at most one heartbeat interval.
+     *
+     * @return the changes in order, empty if none arrived in time, or null if the stream is to end
+     * @throws SlowSubscriberException if changes the subscriber has not been sent were overwritten
+     */
+    private List<Change> awaitChanges(Subscriber subscriber) {
+        lock.lock();
+        try {
+            long nanos = heartbeatNanos;
+            while (subscriber.position == lastId && running && !subscriber.closed && nanos > 0) {
+                nanos = changed.awaitNanos(nanos);
+            }
+            if (!running || subscriber.closed) {
+                return null;
+            }
+            if (subscriber.position < oldestId() - 1) {
+                throw new SlowSubscriberException();
+            }
+            List<Change> changes = new ArrayList<>((int) (lastId - subscriber.position));
+            for (long id = subscriber.position + 1; id <= lastId; id++) {
+                changes.add(ring[slot(id)]);
+            }
+            subscriber.position = lastId;
+            return changes;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends every stream; clients reconnect to the next run of the application.
+     */
+    @PreDestroy
+    public void stop() {
+        lock.lock();
+        try {
+            running = false;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long oldestId() {
+        return Math.max(firstId + 1, lastId - ring.length + 1);
+    }
+
+    private int slot(long id) {
+        return (int) Math.floorMod(id, (long) ring.length);
+    }
+
+    private static Long parseId(String id) {
+        if (id == null || id.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(id.trim());
+        } catch (NumberFormatException ex) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    @ManagedAttribute(description = "Open change feed streams")
+    public int getSubscribers() {
+        return subscribers.get();
+    }
+
+    @ManagedAttribute(description = "Id of the latest change")
+    public long getLastEventId() {
+        lock.lock();
+        try {
+            return lastId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @ManagedAttribute(description = "Changes published since startup")
+    public long getPublished() {
+        return published.sum();
+    }
+
+    @ManagedAttribute(description = "Streams resumed from a Last-Event-ID still in the buffer")
+    public long getResumed() {
+        return resumed.sum();
+    }
+
+    @ManagedAttribute(description = "Streams told to reload because their Last-Event-ID was no longer buffered")
+    public long getResets() {
+        return resets.sum();
+    }
+
+    @ManagedAttribute(description = "Streams dropped for falling further behind than the buffer")
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * A numbered change in the ring.
+     */
+    private record Change(long id, CompanyChangedEvent event) {
+        SseEmitter.SseEventBuilder toSse() {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("id", event.id());
+            if (event.type() != CompanyChangedEvent.Type.DELETED) {
+                data.put("name", event.name());
+                data.put("location", event.location());
+            }
+            return SseEmitter.event()
+                    .id(Long.toString(id))
+                    .name(event.type().name().toLowerCase(Locale.ROOT))
+                    .data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * One open stream: its position in the ring is the id of the last change it was sent. Guarded by
+     * the feed's lock, except for {@code closed}, which the emitter callbacks set.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private long position;
+        private boolean reset;
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.lock();
+            try {
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class SlowSubscriberException extends RuntimeException {
+        SlowSubscriberException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package net.companycompass.service;
+
+import net.companycompass.model.Company;
+
+/**
+ * Published by {@link CompanyService} implementations after a company has been added, updated or deleted.
+ * The event carries a detached copy of the values that were written, so listeners never see an entity
+ * that is still attached to a persistence context. For deletions only the id is set.
+ *
+ * @param type     the kind of change
+ * @param id       the id of the affected company
+ * @param name     the name after the change, or null for a deletion
+ * @param location the location after the change, or null for a deletion
+ */
+public record CompanyChangedEvent(Type type, Long id, String name, String location) {
+    public enum Type {
+        ADDED,
+        UPDATED,
+        DELETED
+    }
+
+    public static CompanyChangedEvent added(Company company) {
+        return new CompanyChangedEvent(Type.ADDED, company.getId(), company.getName(), company.getLocation());
+    }
+
+    public static CompanyChangedEvent updated(Company company) {
+        return new CompanyChangedEvent(Type.UPDATED, company.getId(), company.getName(), company.getLocation());
+    }
+
+    public static CompanyChangedEvent deleted(Long id) {
+        return new CompanyChangedEvent(Type.DELETED, id, null, null);
+    }
+
+    /**
+     * Builds a new, unmanaged {@link Company} holding the values of this event.
+     *
+     * @return the company as written, or null for a deletion
+     */
+    public Company toCompany() {
+        if (type == Type.DELETED) {
+            return null;
+        }
+        Company company = new Company(name, location);
+        company.setId(id);
+        return company;
+    }
+}
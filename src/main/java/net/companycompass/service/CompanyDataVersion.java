@@ -0,0 +1,42 @@
+package net.companycompass.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version number of the company table, moved once for every committed {@link CompanyChangedEvent}.
+ * Anything derived from company data, such as rendered HTML, can be keyed by the version read before
+ * the data itself and is then never served after a later write.
+ *
+ * <p>The counter starts at the startup time in milliseconds, so versions handed out by an earlier run
+ * of the application are not repeated. Its listener runs after every other change listener, so caches
+ * in front of the database have already been invalidated when the new version becomes visible.
+ */
+@Component
+@Profile("local")
+public class CompanyDataVersion {
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * @return the current version of the company data
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Moves the version once the change has been committed.
+     *
+     * @param event the change that was written
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCompanyChanged(CompanyChangedEvent event) {
+        version.incrementAndGet();
+    }
+}
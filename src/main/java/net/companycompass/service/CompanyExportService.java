@@ -0,0 +1,103 @@
+package net.companycompass.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.companycompass.model.Company;
+import net.companycompass.repository.CompanyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exports all companies as CSV or newline-delimited JSON.
+ * Rows are read through the repository's forward-only cursor inside a read-only transaction and written
+ * to the target one at a time. They are read as projections that the persistence context never tracks,
+ * so memory use does not grow with the size of the table.
+ */
+@Service
+@Profile("local")
+@Transactional(readOnly = true)
+public class CompanyExportService {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final CompanyRepository companyRepository;
+
+    @Autowired
+    public CompanyExportService(CompanyRepository companyRepository) {
+        this.companyRepository = companyRepository;
+    }
+
+    /**
+     * Writes all companies as CSV with an "id,name,location" header. Fields containing commas,
+     * quotes or line breaks are enclosed in double quotes.
+     *
+     * @param writer the target; flushed but not closed
+     * @return the number of companies written
+     * @throws IOException if writing fails
+     */
+    public long exportCsv(Writer writer) throws IOException {
+        writer.write("id,name,location\n");
+        long count = 0;
+        try (Stream<Company> companies = companyRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Company> iterator = companies.iterator();
+            while (iterator.hasNext()) {
+                Company company = iterator.next();
+                writer.write(String.valueOf(company.getId()));
+                writer.write(',');
+                writer.write(csvField(company.getName()));
+                writer.write(',');
+                writer.write(csvField(company.getLocation()));
+                writer.write('\n');
+                count++;
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Writes all companies as newline-delimited JSON, one object with "id", "name" and "location"
+     * per line.
+     *
+     * @param writer the target; flushed but not closed
+     * @return the number of companies written
+     * @throws IOException if writing fails
+     */
+    public long exportNdjson(Writer writer) throws IOException {
+        long count = 0;
+        try (Stream<Company> companies = companyRepository.streamAllByOrderByIdAsc();
+             JsonGenerator json = JSON_FACTORY.createGenerator(writer)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+            Iterator<Company> iterator = companies.iterator();
+            while (iterator.hasNext()) {
+                Company company = iterator.next();
+                json.writeStartObject();
+                json.writeNumberField("id", company.getId());
+                json.writeStringField("name", company.getName());
+                json.writeStringField("location", company.getLocation());
+                json.writeEndObject();
+                json.writeRaw('\n');
+                count++;
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
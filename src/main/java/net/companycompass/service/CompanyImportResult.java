@@ -0,0 +1,33 @@
+package net.companycompass.service;
+
+import java.util.List;
+
+/**
+ * Summary of a bulk CSV import.
+ *
+ * @param rowsRead      data rows read from the input, excluding the header and blank lines
+ * @param imported      rows that were inserted
+ * @param rejected      rows that failed validation and were skipped
+ * @param errors        the first rejected rows with the reason, up to the configured limit
+ * @param elapsedMillis wall-clock duration of the import
+ */
+public record CompanyImportResult(long rowsRead, long imported, long rejected,
+                                  List<RowError> errors, long elapsedMillis) {
+    /**
+     * A rejected input row.
+     *
+     * @param line    the 1-based line number in the input
+     * @param message why the row was rejected
+     */
+    public record RowError(long line, String message) {
+    }
+
+    /**
+     * Returns the import throughput.
+     *
+     * @return inserted rows per second of elapsed time
+     */
+    public long rowsPerSecond() {
+        return elapsedMillis == 0 ? imported : imported * 1000 / elapsedMillis;
+    }
+}
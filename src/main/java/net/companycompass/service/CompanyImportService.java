@@ -0,0 +1,188 @@
+package net.companycompass.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import net.companycompass.model.Company;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports companies from CSV in bulk.
+ * The input is read line by line and never held in memory as a whole. Valid rows are collected into
+ * chunks of {@code companies.import.commitInterval} rows, and each chunk is inserted in its own
+ * transaction, flushing and clearing the persistence context every {@code db.jdbc.batchSize} rows so
+ * Hibernate sends them as JDBC batches and memory stays bounded. Each row goes through the same
+ * {@link Company} setters, and therefore the same sanitizing rules, as a row saved from the form.
+ * The expected columns are {@code name,location}; a header row with those names is skipped, and
+ * fields may be quoted with double quotes to contain commas.
+ */
+@Service
+@Profile("local")
+public class CompanyImportService {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int commitInterval;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    @Autowired
+    public CompanyImportService(PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${companies.import.commitInterval:10000}") int commitInterval,
+                                @Value("${db.jdbc.batchSize:50}") int batchSize,
+                                @Value("${companies.import.maxReportedErrors:100}") int maxReportedErrors) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.commitInterval = commitInterval;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Reads companies from a UTF-8 CSV stream and inserts the valid rows.
+     * Rows committed before an I/O error are kept.
+     *
+     * @param input the CSV content; not closed by this method
+     * @return the import summary, including per-row errors
+     * @throws IOException if reading the input fails
+     */
+    public CompanyImportResult importCsv(InputStream input) throws IOException {
+        long start = System.currentTimeMillis();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<Company> chunk = new ArrayList<>(Math.min(commitInterval, 10_000));
+        List<CompanyImportResult.RowError> errors = new ArrayList<>();
+        long lineNumber = 0;
+        long rowsRead = 0;
+        long imported = 0;
+        long rejected = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && isHeader(line))) {
+                continue;
+            }
+            rowsRead++;
+            String error;
+            Company company = null;
+            List<String> fields = parseLine(line);
+            if (fields == null) {
+                error = "Unterminated quoted field";
+            } else if (fields.size() != 2) {
+                error = "Expected 2 columns (name,location) but found " + fields.size();
+            } else {
+                company = new Company();
+                company.setName(fields.get(0));
+                company.setLocation(fields.get(1));
+                error = validate(company);
+            }
+
+            if (error != null) {
+                rejected++;
+                if (errors.size() < maxReportedErrors) {
+                    errors.add(new CompanyImportResult.RowError(lineNumber, error));
+                }
+                continue;
+            }
+            chunk.add(company);
+            if (chunk.size() >= commitInterval) {
+                imported += insert(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            imported += insert(chunk);
+        }
+        return new CompanyImportResult(rowsRead, imported, rejected, List.copyOf(errors),
+                System.currentTimeMillis() - start);
+    }
+
+    private int insert(List<Company> companies) {
+        Integer inserted = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (Company company : companies) {
+                entityManager.persist(company);
+                eventPublisher.publishEvent(CompanyChangedEvent.added(company));
+                if (++count % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return count;
+        });
+        return inserted == null ? 0 : inserted;
+    }
+
+    private static String validate(Company company) {
+        if (company.getName() == null || company.getName().isEmpty()) {
+            return "Name is empty";
+        }
+        if (company.getLocation() == null || company.getLocation().isEmpty()) {
+            return "Location is empty";
+        }
+        return null;
+    }
+
+    private static boolean isHeader(String line) {
+        List<String> fields = parseLine(line);
+        return fields != null && fields.size() == 2
+                && fields.get(0).trim().equalsIgnoreCase("name")
+                && fields.get(1).trim().equalsIgnoreCase("location");
+    }
+
+    /**
+     * Splits one CSV line into fields. Fields may be enclosed in double quotes, in which case they
+     * can contain commas, and a doubled quote inside a quoted field stands for a single quote.
+     *
+     * @param line the line to parse
+     * @return the fields, or null if a quoted field is not terminated on this line
+     */
+    static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,62 @@
+package net.companycompass.service;
+
+import jakarta.annotation.PostConstruct;
+import net.companycompass.model.Company;
+import net.companycompass.repository.CompanyRepository;
+import net.companycompass.service.facet.LocationFacetIndexer;
+import net.companycompass.service.search.CompanySearchIndexer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills the in-memory search index and location facets of the database-backed service at startup.
+ * Both are built in one pass over the companies table, read in id order in fixed-size batches with a
+ * keyset cursor, so that no more than one batch of entities is held at a time. Nothing is read when
+ * {@code companies.index.inMemory} is false.
+ */
+@Component
+@Profile("local")
+public class CompanyIndexLoader {
+    private static final Logger logger = LoggerFactory.getLogger(CompanyIndexLoader.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private final CompanyRepository companyRepository;
+    private final CompanySearchIndexer searchIndexer;
+    private final LocationFacetIndexer facetIndexer;
+
+    @Autowired
+    public CompanyIndexLoader(CompanyRepository companyRepository, CompanySearchIndexer searchIndexer,
+                              LocationFacetIndexer facetIndexer) {
+        this.companyRepository = companyRepository;
+        this.searchIndexer = searchIndexer;
+        this.facetIndexer = facetIndexer;
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!searchIndexer.isEnabled() && !facetIndexer.isEnabled()) {
+            logger.info("In-memory search index and location facets are disabled; both are read from the database");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long companies = 0;
+        List<Company> batch = companyRepository.findByOrderByIdAsc(Limit.of(BATCH_SIZE));
+        while (!batch.isEmpty()) {
+            for (Company company : batch) {
+                searchIndexer.index(company);
+                facetIndexer.index(company);
+            }
+            companies += batch.size();
+            Long last = batch.get(batch.size() - 1).getId();
+            batch = companyRepository.findByIdGreaterThanOrderByIdAsc(last, Limit.of(BATCH_SIZE));
+        }
+        logger.info("Search index and location facets built with {} companies in {} ms",
+                companies, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,11 @@
+package net.companycompass.service;
+
+/**
+ * Thrown by {@link CompanyService} implementations when an operation refers to a company id
+ * that does not exist.
+ */
+public class CompanyNotFoundException extends RuntimeException {
+    public CompanyNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,10 @@
 package net.companycompass.service;
 
 import net.companycompass.model.Company;
+import net.companycompass.model.CompanyFilter;
+import net.companycompass.model.CompanyPage;
+import net.companycompass.model.CompanySort;
+import net.companycompass.model.LocationFacet;
 
 import java.util.List;
 
@@ -12,11 +16,87 @@ import java.util.List;
 public interface CompanyService {
     List<Company> getCompanies();
 
+    /**
+     * Retrieves one page of companies using a keyset cursor. At most one of {@code after}
+     * and {@code before} is expected; when both are null the first page is returned.
+     *
+     * @param sort   the ordering of the listing
+     * @param after  the id of the row the page starts after, or null
+     * @param before the id of the row the page ends before, or null
+     * @param size   the maximum number of rows on the page
+     * @return the requested page
+     */
+    CompanyPage getCompanyPage(CompanySort sort, Long after, Long before, int size);
+
+    /**
+     * Retrieves one page of the companies matching a filter, ordered by {@link CompanyFilter#ORDER},
+     * using a keyset cursor like {@link #getCompanyPage}. The returned page reports {@link CompanySort#NAME}.
+     *
+     * @param filter the location and name prefix to match
+     * @param after  the id of the row the page starts after, or null
+     * @param before the id of the row the page ends before, or null
+     * @param size   the maximum number of rows on the page
+     * @return the requested page
+     */
+    CompanyPage getFilteredPage(CompanyFilter filter, Long after, Long before, int size);
+
+    /**
+     * Searches company names and locations for words starting with every term of the query.
+     *
+     * @param query the free-text query
+     * @param limit the maximum number of results
+     * @return the matching companies, best match first
+     */
+    List<Company> searchCompanies(String query, int limit);
+
+    /**
+     * Returns the locations with the most companies, for the facet panel of the listing. The counts
+     * are kept in memory, so the cost does not grow with the number of companies.
+     *
+     * @param limit the maximum number of locations
+     * @return the locations and their company counts, largest first, ties in alphabetical order
+     */
+    List<LocationFacet> getLocationFacets(int limit);
+
     Company getCompanyById(Long id);
 
+    /**
+     * Returns the version of a company without reading the rest of it, for conditional requests that
+     * are answered before the company is loaded.
+     *
+     * @param id the id of the company
+     * @return the stored version
+     * @throws CompanyNotFoundException if there is no company with that id
+     */
+    Long getCompanyVersion(Long id);
+
     void addCompany(Company company);
 
+    /**
+     * Replaces the name and location of a company. If the company carries a version, the update is
+     * refused with an {@link org.springframework.dao.OptimisticLockingFailureException} when the stored
+     * company is no longer at that version.
+     *
+     * @param company the id, new values and, optionally, the version they are based on
+     */
     void updateCompany(Company company);
 
-    void deleteCompany(Long id);
+    /**
+     * Deletes a company. If a version is given, the deletion is refused with an
+     * {@link org.springframework.dao.OptimisticLockingFailureException} when the stored company is no
+     * longer at that version, so a deletion based on a stale copy never removes someone else's edit.
+     *
+     * @param id      the id of the company
+     * @param version the version the deletion is based on, or null to delete whatever version is stored
+     */
+    void deleteCompany(Long id, Long version);
+
+    /**
+     * Returns a number that changes whenever the companies visible through this service change.
+     * Equal versions imply equal data, so the version can key caches of derived content; it must be
+     * read before the data it is paired with.
+     *
+     * @return the current data version
+     */
+    long getDataVersion();
 }
@@ -1,54 +1,254 @@
 package net.companycompass.service;
 
 import net.companycompass.model.Company;
+import net.companycompass.model.CompanyFilter;
+import net.companycompass.model.CompanyPage;
+import net.companycompass.model.CompanySort;
+import net.companycompass.model.LocationFacet;
 import net.companycompass.repository.CompanyRepository;
+import net.companycompass.service.facet.LocationFacetIndexer;
+import net.companycompass.service.search.CompanySearchIndexer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.context.annotation.Fallback;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
+/**
+ * The {@link CompanyService} backed by the database.
+ * Reads run in read-only transactions: Hibernate loads entities read-only and never flushes, and the
+ * list and page queries return projections that are not attached to the persistence context. Updates
+ * and deletes are single conditional statements; every committed write publishes a
+ * {@link CompanyChangedEvent}.
+ */
 @Service
+@Fallback
 @Profile("local")
 @Transactional
 public class DatabaseCompanyService implements CompanyService {
     private final CompanyRepository companyRepository;
+    private final CompanySearchIndexer searchIndexer;
+    private final LocationFacetIndexer facetIndexer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CompanyDataVersion dataVersion;
+    private volatile FacetSnapshot facetSnapshot;
 
     @Autowired
-    public DatabaseCompanyService(CompanyRepository companyRepository) {
+    public DatabaseCompanyService(CompanyRepository companyRepository, CompanySearchIndexer searchIndexer,
+                                  LocationFacetIndexer facetIndexer, ApplicationEventPublisher eventPublisher,
+                                  CompanyDataVersion dataVersion) {
         this.companyRepository = companyRepository;
+        this.searchIndexer = searchIndexer;
+        this.facetIndexer = facetIndexer;
+        this.eventPublisher = eventPublisher;
+        this.dataVersion = dataVersion;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Company> getCompanies() {
-        return companyRepository.findAll();
+        return companyRepository.findAllProjectedByOrderByIdAsc();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CompanyPage getCompanyPage(CompanySort sort, Long after, Long before, int size) {
+        boolean backward = after == null && before != null;
+        Long cursor = backward ? before : after;
+        Limit limit = Limit.of(size + 1);
+
+        if (cursor == null) {
+            return CompanyPage.of(findFirst(sort, limit), sort, size, false, false);
+        }
+        if (sort == CompanySort.ID) {
+            List<Company> rows = backward
+                    ? companyRepository.findByIdLessThanOrderByIdDesc(cursor, limit)
+                    : companyRepository.findByIdGreaterThanOrderByIdAsc(cursor, limit);
+            return CompanyPage.of(rows, sort, size, backward, true);
+        }
+
+        // The cursor row supplies the sort key to seek from; if it has since been deleted, start over.
+        Company anchor = companyRepository.findById(cursor).orElse(null);
+        if (anchor == null) {
+            return CompanyPage.of(findFirst(sort, limit), sort, size, false, false);
+        }
+        List<Company> rows = switch (sort) {
+            case NAME -> backward
+                    ? companyRepository.findNamePageBefore(anchor.getName(), anchor.getId(), limit)
+                    : companyRepository.findNamePageAfter(anchor.getName(), anchor.getId(), limit);
+            default -> backward
+                    ? companyRepository.findLocationPageBefore(anchor.getLocation(), anchor.getId(), limit)
+                    : companyRepository.findLocationPageAfter(anchor.getLocation(), anchor.getId(), limit);
+        };
+        return CompanyPage.of(rows, sort, size, backward, true);
+    }
+
+    /**
+     * Reads a filtered page through the name_key and location_key indexes. As with the sorted pages,
+     * the cursor row supplies the key to seek from, and a deleted cursor row starts over.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CompanyPage getFilteredPage(CompanyFilter filter, Long after, Long before, int size) {
+        boolean backward = after == null && before != null;
+        Long cursor = backward ? before : after;
+        Limit limit = Limit.of(size + 1);
+        String location = filter.location();
+        String pattern = filter.namePattern();
+
+        Company anchor = cursor == null ? null : companyRepository.findById(cursor).orElse(null);
+        if (anchor == null) {
+            List<Company> rows = location == null
+                    ? companyRepository.findByNameKeyLike(pattern, limit)
+                    : companyRepository.findByLocationKeyAndNameKeyLike(location, pattern, limit);
+            return CompanyPage.of(rows, CompanySort.NAME, size, false, false);
+        }
+        String name = CompanyFilter.key(anchor.getName());
+        List<Company> rows;
+        if (location == null) {
+            rows = backward
+                    ? companyRepository.findNameKeyPageBefore(pattern, name, anchor.getId(), limit)
+                    : companyRepository.findNameKeyPageAfter(pattern, name, anchor.getId(), limit);
+        } else {
+            rows = backward
+                    ? companyRepository.findLocationKeyPageBefore(location, pattern, name, anchor.getId(), limit)
+                    : companyRepository.findLocationKeyPageAfter(location, pattern, name, anchor.getId(), limit);
+        }
+        return CompanyPage.of(rows, CompanySort.NAME, size, backward, true);
+    }
+
+    /**
+     * Searches the in-memory index. Without it, finds the companies whose name starts with the query,
+     * ignoring case, through the name_key index.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Company> searchCompanies(String query, int limit) {
+        if (searchIndexer.isEnabled()) {
+            return searchIndexer.search(query, limit);
+        }
+        CompanyFilter filter = CompanyFilter.of(null, query);
+        if (filter.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return companyRepository.findByNameKeyLike(filter.namePattern(), Limit.of(limit));
+    }
+
+    /**
+     * Reads the in-memory counts. Without them, counts the companies per location in the database, which
+     * reads the whole location_key index, once per data version: the result is kept until a write moves
+     * the version, so repeated views of the listing share one count.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<LocationFacet> getLocationFacets(int limit) {
+        if (facetIndexer.isEnabled()) {
+            return facetIndexer.top(limit);
+        }
+        if (limit <= 0) {
+            return List.of();
+        }
+        // The version is read before the count, so a snapshot only holds counts at least as new as its key
+        long version = dataVersion.current();
+        FacetSnapshot cached = facetSnapshot;
+        if (cached != null && cached.dataVersion() == version && cached.limit() == limit) {
+            return cached.facets();
+        }
+        List<LocationFacet> facets = List.copyOf(companyRepository.findLocationFacets(Limit.of(limit)));
+        facetSnapshot = new FacetSnapshot(version, limit, facets);
+        return facets;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Company getCompanyById(Long id) {
         return companyRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Company not found with id: " + id));
+                .orElseThrow(() -> new CompanyNotFoundException("Company not found with id: " + id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Long getCompanyVersion(Long id) {
+        return companyRepository.findVersionById(id)
+                .orElseThrow(() -> new CompanyNotFoundException("Company not found with id: " + id));
     }
 
     @Override
     public void addCompany(Company company) {
-        companyRepository.save(company);
+        Company saved = companyRepository.save(company);
+        eventPublisher.publishEvent(CompanyChangedEvent.added(saved));
     }
 
+    /**
+     * Updates a company with a single conditional UPDATE. When the company carries a version, the
+     * update only applies if the stored row is still at that version, and the company's version is
+     * advanced to match the row. Without a version the latest write wins.
+     *
+     * @throws CompanyNotFoundException         if no company has the id
+     * @throws OptimisticLockingFailureException if the company was changed since the given version
+     */
     @Override
     public void updateCompany(Company company) {
-        Company existing = getCompanyById(company.getId());
-        existing.setName(company.getName());
-        existing.setLocation(company.getLocation());
-        companyRepository.save(existing);
+        Long version = company.getVersion();
+        int updated = companyRepository.updateIfCurrent(company.getId(), company.getName(), company.getLocation(), version);
+        if (updated == 0) {
+            throw writeFailure(company.getId(), version, "Company not found with id: ");
+        }
+        if (version != null) {
+            company.setVersion(version + 1);
+        }
+        eventPublisher.publishEvent(CompanyChangedEvent.updated(company));
     }
 
+    /**
+     * Deletes a company with a single conditional DELETE, which only applies if the stored row is still
+     * at the given version, if any.
+     *
+     * @throws CompanyNotFoundException         if no company has the id
+     * @throws OptimisticLockingFailureException if the company was changed since the given version
+     */
     @Override
-    public void deleteCompany(Long id) {
-        if (!companyRepository.existsById(id)) {
-            throw new RuntimeException("Cannot delete. Company not found with id: " + id);
+    public void deleteCompany(Long id, Long version) {
+        if (companyRepository.deleteIfCurrent(id, version) == 0) {
+            throw writeFailure(id, version, "Cannot delete. Company not found with id: ");
         }
-        companyRepository.deleteById(id);
+        eventPublisher.publishEvent(CompanyChangedEvent.deleted(id));
+    }
+
+    /**
+     * Explains a conditional write that affected no row. Only this failure path costs a second query.
+     */
+    private RuntimeException writeFailure(Long id, Long version, String notFoundMessage) {
+        if (version != null && companyRepository.existsById(id)) {
+            return new OptimisticLockingFailureException(
+                    "Company " + id + " was changed by someone else since version " + version);
+        }
+        return new CompanyNotFoundException(notFoundMessage + id);
+    }
+
+    private List<Company> findFirst(CompanySort sort, Limit limit) {
+        return switch (sort) {
+            case ID -> companyRepository.findByOrderByIdAsc(limit);
+            case NAME -> companyRepository.findByOrderByNameAscIdAsc(limit);
+            case LOCATION -> companyRepository.findByOrderByLocationAscIdAsc(limit);
+        };
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getDataVersion() {
+        return dataVersion.current();
+    }
+
+    /**
+     * The location facets counted in the database at one data version.
+     */
+    private record FacetSnapshot(long dataVersion, int limit, List<LocationFacet> facets) {
     }
-}
\ No newline at end of file
+}
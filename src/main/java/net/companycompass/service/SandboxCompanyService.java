@@ -1,82 +1,220 @@
 package net.companycompass.service;
 
 import net.companycompass.model.Company;
-import jakarta.annotation.PostConstruct;
+import net.companycompass.model.CompanyFilter;
+import net.companycompass.model.CompanyPage;
+import net.companycompass.model.CompanySort;
+import net.companycompass.model.LocationFacet;
+import net.companycompass.service.facet.LocationFacetIndex;
+import net.companycompass.service.search.CompanySearchIndex;
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.context.annotation.SessionScope;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Per-session company store of the demo profile.
+ *
+ * <p>All sessions share one immutable seed dataset. A session only records its own changes:
+ * added or edited companies by id and tombstones for deleted seed companies. Every write builds a new
+ * immutable {@link View} that merges this delta with the seed, and reads use the current view without
+ * locking. A session that never writes keeps the shared seed view, so it costs almost no memory and
+ * reports the same data version as every other unchanged session.
+ */
 @Service
 @SessionScope
 @Profile("demo")
 public class SandboxCompanyService implements CompanyService {
-    private List<Company> companies;
-    private long nextId = 1;
     private static final int MAX_ROWS = 12;
+    // Shared by all sessions so that no two different sandboxes ever report the same data version
+    private static final AtomicLong DATA_VERSIONS = new AtomicLong(System.currentTimeMillis());
+    private static final View SEED = View.of(seedCompanies(), Map.of(), Set.of(), DATA_VERSIONS.incrementAndGet());
 
-    @PostConstruct
-    public void init() {
-        this.companies = new ArrayList<>();
-        saveInternal("TechNova Solutions", "San Francisco, CA");
-        saveInternal("BlueFin Capital", "New York, NY");
-        saveInternal("GreenLeaf Energy", "Denver, CO");
-        saveInternal("Summit Health Systems", "Nashville, TN");
-        saveInternal("Apex Logistics Global", "Miami, FL");
-        saveInternal("Quantum Dynamics", "Boston, MA");
-        saveInternal("SilverLine Architecture", "Chicago, IL");
-        saveInternal("RedRock Consulting", "Phoenix, AZ");
-        saveInternal("Orbit Media Group", "Los Angeles, CA");
-        saveInternal("Cascade Engineering", "Seattle, WA");
-    }
+    private long nextId = SEED.companies().size() + 1L;
+    private final Map<Long, Company> changes = new TreeMap<>();
+    private final Set<Long> tombstones = new HashSet<>();
+    private volatile View view = SEED;
 
     @Override
     public List<Company> getCompanies() {
-        return new ArrayList<>(companies);
+        return new ArrayList<>(view.companies());
+    }
+
+    @Override
+    public CompanyPage getCompanyPage(CompanySort sort, Long after, Long before, int size) {
+        View current = view;
+        boolean backward = after == null && before != null;
+        Long cursor = backward ? before : after;
+
+        // Mirror the database keyset semantics: seek past the cursor row in the requested order,
+        // starting over from the first page if a name/location cursor row no longer exists.
+        Company anchor = null;
+        if (cursor != null && sort == CompanySort.ID) {
+            anchor = new Company();
+            anchor.setId(cursor);
+        } else if (cursor != null) {
+            anchor = current.byId().get(cursor);
+        }
+        return seek(current.companies(), sort.comparator(), anchor, backward, sort, size);
+    }
+
+    @Override
+    public CompanyPage getFilteredPage(CompanyFilter filter, Long after, Long before, int size) {
+        View current = view;
+        boolean backward = after == null && before != null;
+        Long cursor = backward ? before : after;
+        Company anchor = cursor == null ? null : current.byId().get(cursor);
+        List<Company> matching = current.companies().stream().filter(filter::matches).toList();
+        return seek(matching, CompanyFilter.ORDER, anchor, backward, CompanySort.NAME, size);
+    }
+
+    private static CompanyPage seek(List<Company> companies, Comparator<Company> comparator, Company anchor,
+                                    boolean backward, CompanySort sort, int size) {
+        boolean seekBackward = anchor != null && backward;
+        Comparator<Company> order = seekBackward ? comparator.reversed() : comparator;
+        List<Company> rows = companies.stream()
+                .filter(c -> anchor == null || order.compare(c, anchor) > 0)
+                .sorted(order)
+                .limit(size + 1L)
+                .toList();
+        return CompanyPage.of(rows, sort, size, seekBackward, anchor != null);
+    }
+
+    @Override
+    public List<Company> searchCompanies(String query, int limit) {
+        return view.searchIndex().search(query, limit);
+    }
+
+    @Override
+    public List<LocationFacet> getLocationFacets(int limit) {
+        return view.facets().top(limit);
     }
 
     @Override
     public Company getCompanyById(Long id) {
-        return companies.stream()
-                .filter(c -> c.getId().equals(id))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Company not found with id: " + id));
+        Company company = view.byId().get(id);
+        if (company == null) {
+            throw new CompanyNotFoundException("Company not found with id: " + id);
+        }
+        return company;
     }
 
     @Override
-    public void addCompany(Company company) {
-        if (companies.size() >= MAX_ROWS) return;
-        saveInternal(company.getName(), company.getLocation());
+    public Long getCompanyVersion(Long id) {
+        return getCompanyById(id).getVersion();
     }
 
     @Override
-    public void updateCompany(Company updatedInfo) {
-        Optional<Company> existingOpt = companies.stream()
-                .filter(c -> c.getId().equals(updatedInfo.getId()))
-                .findFirst();
-
-        if (existingOpt.isPresent()) {
-            Company existing = existingOpt.get();
-            existing.setName(updatedInfo.getName());
-            existing.setLocation(updatedInfo.getLocation());
-        } else {
-            throw new RuntimeException("Company not found with id: " + updatedInfo.getId());
+    public synchronized void addCompany(Company company) {
+        if (view.companies().size() >= MAX_ROWS) return;
+        company.setId(nextId++);
+        company.setVersion(0L);
+        changes.put(company.getId(), copyOf(company));
+        publish();
+    }
+
+    @Override
+    public synchronized void updateCompany(Company updatedInfo) {
+        Company existing = view.byId().get(updatedInfo.getId());
+        if (existing == null) {
+            throw new CompanyNotFoundException("Company not found with id: " + updatedInfo.getId());
+        }
+        if (updatedInfo.getVersion() != null && !updatedInfo.getVersion().equals(existing.getVersion())) {
+            throw new OptimisticLockingFailureException("Company " + updatedInfo.getId()
+                    + " was changed by someone else since version " + updatedInfo.getVersion());
+        }
+        updatedInfo.setVersion(existing.getVersion() + 1);
+        // Seed companies are shared by all sessions and are replaced, never modified
+        changes.put(updatedInfo.getId(), copyOf(updatedInfo));
+        publish();
+    }
+
+    @Override
+    public synchronized void deleteCompany(Long id, Long version) {
+        Company existing = view.byId().get(id);
+        if (existing == null) {
+            throw new CompanyNotFoundException("Cannot delete. Company not found with id: " + id);
+        }
+        if (version != null && !version.equals(existing.getVersion())) {
+            throw new OptimisticLockingFailureException("Company " + id
+                    + " was changed by someone else since version " + version);
         }
+        changes.remove(id);
+        if (SEED.byId().containsKey(id)) {
+            tombstones.add(id);
+        }
+        publish();
     }
 
     @Override
-    public void deleteCompany(Long id) {
-        companies.removeIf(c -> c.getId().equals(id));
+    public long getDataVersion() {
+        return view.dataVersion();
+    }
+
+    private void publish() {
+        view = View.of(SEED.companies(), changes, tombstones, DATA_VERSIONS.incrementAndGet());
+    }
+
+    private static Company copyOf(Company company) {
+        Company copy = new Company(company.getName(), company.getLocation());
+        copy.setId(company.getId());
+        copy.setVersion(company.getVersion());
+        return copy;
     }
 
-    private void saveInternal(String name, String location) {
-        Company c = new Company();
-        c.setId(nextId++);
-        c.setName(name);
-        c.setLocation(location);
-        companies.add(c);
+    private static List<Company> seedCompanies() {
+        String[][] seed = {
+                {"TechNova Solutions", "San Francisco, CA"},
+                {"BlueFin Capital", "New York, NY"},
+                {"GreenLeaf Energy", "Denver, CO"},
+                {"Summit Health Systems", "Nashville, TN"},
+                {"Apex Logistics Global", "Miami, FL"},
+                {"Quantum Dynamics", "Boston, MA"},
+                {"SilverLine Architecture", "Chicago, IL"},
+                {"RedRock Consulting", "Phoenix, AZ"},
+                {"Orbit Media Group", "Los Angeles, CA"},
+                {"Cascade Engineering", "Seattle, WA"}
+        };
+        List<Company> companies = new ArrayList<>(seed.length);
+        for (int i = 0; i < seed.length; i++) {
+            Company company = new Company(seed[i][0], seed[i][1]);
+            company.setId(i + 1L);
+            company.setVersion(0L);
+            companies.add(company);
+        }
+        return companies;
+    }
+
+    /**
+     * An immutable snapshot of a session's companies: the seed with the session's changes applied,
+     * in id order, indexed by id, for search and by location.
+     */
+    private record View(List<Company> companies, Map<Long, Company> byId, CompanySearchIndex searchIndex,
+                        LocationFacetIndex facets, long dataVersion) {
+        static View of(List<Company> seed, Map<Long, Company> changes, Set<Long> tombstones, long dataVersion) {
+            TreeMap<Long, Company> merged = new TreeMap<>();
+            for (Company company : seed) {
+                if (!tombstones.contains(company.getId())) {
+                    merged.put(company.getId(), company);
+                }
+            }
+            merged.putAll(changes);
+            CompanySearchIndex searchIndex = new CompanySearchIndex();
+            merged.values().forEach(searchIndex::index);
+            LocationFacetIndex facets = new LocationFacetIndex();
+            merged.values().forEach(facets::index);
+            return new View(List.copyOf(merged.values()), Collections.unmodifiableMap(merged), searchIndex, facets,
+                    dataVersion);
+        }
     }
-}
\ No newline at end of file
+}
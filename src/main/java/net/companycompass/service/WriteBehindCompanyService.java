@@ -0,0 +1,579 @@
+package net.companycompass.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.companycompass.model.Company;
+import net.companycompass.model.CompanyFilter;
+import net.companycompass.model.CompanyPage;
+import net.companycompass.model.CompanySort;
+import net.companycompass.model.LocationFacet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Asynchronous write mode in front of {@link CachingCompanyService}, enabled with
+ * {@code companies.writeBehind.enabled=true}.
+ *
+ * <p>Adds, updates and deletes are validated and queued, and the caller returns without waiting for a
+ * commit. Queued writes are keyed by company id, so repeated edits of one company coalesce into a single
+ * row change, and an add followed by a delete cancels out. A flusher thread writes the queue as JDBC
+ * batches, at most {@code companies.writeBehind.batchSize} changes per transaction, once that many
+ * changes are queued or the oldest has waited {@code companies.writeBehind.maxDelayMillis}. While one
+ * batch is written the next one fills. When {@code companies.writeBehind.capacity} changes are queued,
+ * writers block until the flusher makes room, and fail with {@link RejectedExecutionException} after
+ * {@code companies.writeBehind.offerTimeoutMillis}.
+ *
+ * <p>New companies get their id immediately from the same sequence and block size as Hibernate uses.
+ * Each committed batch publishes the usual {@link CompanyChangedEvent}s, so caches, the search index
+ * and the data version follow once the batch is in the database. Until then other callers read the
+ * previous state. The HTTP session that made a change reads its own writes: its first read after a
+ * write waits until the batch holding that write has committed. A client without a session, such as an
+ * API integration, is not given one; only the rest of the request that wrote waits. This includes a
+ * request that reads the data version after writing, such as an API call answering with the new ETag;
+ * it still shares its commit with the writes queued alongside it. On shutdown the queue is drained
+ * before the data source is closed.
+ *
+ * <p>This mode gives up two guarantees of the synchronous services. First, queued updates and deletes
+ * are not conditional on the version the caller read: the latest queued change of a company wins, as it
+ * does for coalesced edits, so a stale edit form or {@code If-Match} tag is never refused and the edit
+ * conflict page and its 412 counterpart never appear. Second, a write that fails in its batch is retried on
+ * its own, and a write that fails again is dropped although its caller has already been answered; a
+ * browser has been redirected as if it had been saved. Every dropped write is logged with its cause
+ * and counted. Queue statistics, including the dropped writes, are exported as the JMX MBean
+ * {@code net.companycompass:type=CompanyWriteBehind}.
+ */
+@Service
+@Primary
+@Profile("local")
+@Conditional(WriteBehindEnabledCondition.class)
+@ManagedResource(objectName = "net.companycompass:type=CompanyWriteBehind",
+        description = "Company write-behind queue")
+public class WriteBehindCompanyService implements CompanyService {
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindCompanyService.class);
+    private static final String LAST_WRITE_ATTRIBUTE = WriteBehindCompanyService.class.getName() + ".LAST_WRITE";
+
+    private static final String INSERT_SQL = "INSERT INTO companies (id, name, location) VALUES (?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE companies SET name = ?, location = ?, version = version + 1 WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM companies WHERE id = ?";
+
+    private final CompanyService delegate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final int capacity;
+    private final long offerTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private LinkedHashMap<Long, Pending> pending = new LinkedHashMap<>();
+    private Map<Long, Pending> inFlight = Map.of();
+    private long lastSequence;
+    private volatile long flushedSequence;
+    private long oldestPendingNanos;
+    private boolean flushNow;
+    private volatile boolean running;
+    private boolean flusherStopped;
+    private Thread flusher;
+
+    private final Object idLock = new Object();
+    private long nextId = 1;
+    private long maxId;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @Autowired
+    public WriteBehindCompanyService(@Qualifier("cachingCompanyService") CompanyService delegate,
+                                     ApplicationEventPublisher eventPublisher,
+                                     DataSource dataSource,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${companies.writeBehind.batchSize:500}") int batchSize,
+                                     @Value("${companies.writeBehind.maxDelayMillis:200}") long maxDelayMillis,
+                                     @Value("${companies.writeBehind.capacity:10000}") int capacity,
+                                     @Value("${companies.writeBehind.offerTimeoutMillis:5000}") long offerTimeoutMillis) {
+        this.delegate = delegate;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.capacity = capacity;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = Thread.ofPlatform().name("company-write-behind").daemon().start(this::runFlusher);
+    }
+
+    /**
+     * Stops accepting queued writes, waits for the flusher to write everything that is queued and
+     * writes any remainder directly. Writes arriving from now on go straight to the database.
+     */
+    @PreDestroy
+    public void drain() throws InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join();
+
+        List<Pending> remaining;
+        lock.lock();
+        try {
+            remaining = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+        } finally {
+            lock.unlock();
+        }
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+        logger.info("Write-behind queue drained: {} writes in {} batches, {} failed",
+                written.sum(), batches.sum(), failed.sum());
+    }
+
+    @Override
+    public List<Company> getCompanies() {
+        awaitOwnWrites();
+        return delegate.getCompanies();
+    }
+
+    @Override
+    public CompanyPage getCompanyPage(CompanySort sort, Long after, Long before, int size) {
+        awaitOwnWrites();
+        return delegate.getCompanyPage(sort, after, before, size);
+    }
+
+    @Override
+    public CompanyPage getFilteredPage(CompanyFilter filter, Long after, Long before, int size) {
+        awaitOwnWrites();
+        return delegate.getFilteredPage(filter, after, before, size);
+    }
+
+    @Override
+    public List<Company> searchCompanies(String query, int limit) {
+        awaitOwnWrites();
+        return delegate.searchCompanies(query, limit);
+    }
+
+    @Override
+    public List<LocationFacet> getLocationFacets(int limit) {
+        awaitOwnWrites();
+        return delegate.getLocationFacets(limit);
+    }
+
+    @Override
+    public Company getCompanyById(Long id) {
+        awaitOwnWrites();
+        return delegate.getCompanyById(id);
+    }
+
+    @Override
+    public Long getCompanyVersion(Long id) {
+        awaitOwnWrites();
+        return delegate.getCompanyVersion(id);
+    }
+
+    @Override
+    public void addCompany(Company company) {
+        if (running) {
+            company.setId(allocateId());
+            if (enqueue(CompanyChangedEvent.added(company))) {
+                return;
+            }
+            company.setId(null);
+        }
+        delegate.addCompany(company);
+    }
+
+    @Override
+    public void updateCompany(Company company) {
+        if (!running) {
+            delegate.updateCompany(company);
+            return;
+        }
+        requireExisting(company.getId(), "Company not found with id: ");
+        if (!enqueue(CompanyChangedEvent.updated(company))) {
+            delegate.updateCompany(company);
+        }
+    }
+
+    @Override
+    public void deleteCompany(Long id, Long version) {
+        if (!running) {
+            delegate.deleteCompany(id, version);
+            return;
+        }
+        requireExisting(id, "Cannot delete. Company not found with id: ");
+        if (!enqueue(CompanyChangedEvent.deleted(id))) {
+            delegate.deleteCompany(id, version);
+        }
+    }
+
+    @Override
+    public long getDataVersion() {
+        awaitOwnWrites();
+        return delegate.getDataVersion();
+    }
+
+    /**
+     * Asks the flusher to write the queue now and waits until everything queued so far has committed.
+     */
+    @ManagedOperation(description = "Write all queued changes now and wait for the commit")
+    public void flush() {
+        lock.lock();
+        try {
+            awaitFlushed(lastSequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void requireExisting(Long id, String message) {
+        Boolean exists;
+        lock.lock();
+        try {
+            Pending queued = pending.get(id);
+            if (queued == null) {
+                queued = inFlight.get(id);
+            }
+            exists = queued == null ? null : queued.change().type() != CompanyChangedEvent.Type.DELETED;
+        } finally {
+            lock.unlock();
+        }
+        if (exists == null) {
+            try {
+                delegate.getCompanyById(id);
+                return;
+            } catch (CompanyNotFoundException ex) {
+                exists = false;
+            }
+        }
+        if (!exists) {
+            throw new CompanyNotFoundException(message + id);
+        }
+    }
+
+    /**
+     * Queues a change, merging it with a change of the same company that has not been written yet.
+     *
+     * @return false if the queue no longer accepts writes because the application is shutting down
+     */
+    private boolean enqueue(CompanyChangedEvent change) {
+        long sequence;
+        lock.lock();
+        try {
+            long deadline = System.nanoTime() + offerTimeoutNanos;
+            while (running && pending.size() >= capacity && !pending.containsKey(change.id())) {
+                flushNow = true;
+                workAvailable.signal();
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new RejectedExecutionException("Write queue is full");
+                }
+                notFull.awaitNanos(remaining);
+            }
+            if (!running) {
+                return false;
+            }
+
+            sequence = ++lastSequence;
+            Pending previous = pending.get(change.id());
+            if (previous == null) {
+                if (pending.isEmpty()) {
+                    oldestPendingNanos = System.nanoTime();
+                    workAvailable.signal();
+                }
+                pending.put(change.id(), new Pending(change, sequence));
+            } else {
+                coalesced.increment();
+                CompanyChangedEvent merged = merge(previous.change(), change);
+                if (merged == null) {
+                    pending.remove(change.id());
+                } else {
+                    pending.put(change.id(), new Pending(merged, sequence));
+                }
+            }
+            enqueued.increment();
+            if (pending.size() >= batchSize) {
+                workAvailable.signal();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for room in the write queue", ex);
+        } finally {
+            lock.unlock();
+        }
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            // Remember the write in the session only if there is one: a stateless API client must not get
+            // a session per write, and the request scope still covers reads later in the same request
+            request.setAttribute(LAST_WRITE_ATTRIBUTE, sequence, RequestAttributes.SCOPE_REQUEST);
+            if (hasSession(request)) {
+                request.setAttribute(LAST_WRITE_ATTRIBUTE, sequence, RequestAttributes.SCOPE_SESSION);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Combines a queued change with a newer change of the same company.
+     *
+     * @return the single change with the same effect, or null if together they change nothing
+     */
+    private static CompanyChangedEvent merge(CompanyChangedEvent queued, CompanyChangedEvent next) {
+        if (queued.type() != CompanyChangedEvent.Type.ADDED) {
+            return next;
+        }
+        if (next.type() == CompanyChangedEvent.Type.DELETED) {
+            return null;
+        }
+        // The row does not exist yet, so it is still inserted, with the latest values
+        return CompanyChangedEvent.added(next.toCompany());
+    }
+
+    /**
+     * Lets the current request and HTTP session read their own writes by waiting until the last write they
+     * queued, if any, has committed. Callers outside a request, and requests and sessions without queued
+     * writes, never wait.
+     */
+    private void awaitOwnWrites() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return;
+        }
+        long sequence = Math.max(lastWrite(request, RequestAttributes.SCOPE_REQUEST),
+                lastWrite(request, RequestAttributes.SCOPE_SESSION));
+        if (flushedSequence >= sequence) {
+            return;
+        }
+        lock.lock();
+        try {
+            awaitFlushed(sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long lastWrite(RequestAttributes request, int scope) {
+        // Reading a session attribute never creates the session
+        return request.getAttribute(LAST_WRITE_ATTRIBUTE, scope) instanceof Long sequence ? sequence : 0;
+    }
+
+    private static boolean hasSession(RequestAttributes request) {
+        return request instanceof ServletRequestAttributes servletRequest
+                && servletRequest.getRequest().getSession(false) != null;
+    }
+
+    private void awaitFlushed(long sequence) {
+        // A write that was coalesced away is never flushed, so stop as soon as nothing is left to write
+        while (flushedSequence < sequence && (!pending.isEmpty() || !inFlight.isEmpty()) && !flusherStopped) {
+            flushNow = true;
+            workAvailable.signal();
+            flushed.awaitUninterruptibly();
+        }
+    }
+
+    private void runFlusher() {
+        lock.lock();
+        try {
+            while (running || !pending.isEmpty()) {
+                if (pending.isEmpty()) {
+                    workAvailable.awaitUninterruptibly();
+                    continue;
+                }
+                long waitNanos = oldestPendingNanos + maxDelayNanos - System.nanoTime();
+                if (running && !flushNow && pending.size() < batchSize && waitNanos > 0) {
+                    workAvailable.awaitNanos(waitNanos);
+                    continue;
+                }
+
+                Map<Long, Pending> batch = pending;
+                long batchSequence = lastSequence;
+                pending = new LinkedHashMap<>();
+                inFlight = batch;
+                flushNow = false;
+                notFull.signalAll();
+                lock.unlock();
+                try {
+                    write(batch.values());
+                } finally {
+                    lock.lock();
+                    inFlight = Map.of();
+                    flushedSequence = batchSequence;
+                    flushed.signalAll();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Wake readers waiting for writes that only the drain will complete
+            flusherStopped = true;
+            flushed.signalAll();
+            lock.unlock();
+        }
+    }
+
+    private void write(Collection<Pending> queued) {
+        List<CompanyChangedEvent> changes = queued.stream().map(Pending::change).toList();
+        for (int from = 0; from < changes.size(); from += batchSize) {
+            List<CompanyChangedEvent> chunk = changes.subList(from, Math.min(from + batchSize, changes.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeChunk(chunk));
+                batches.increment();
+                written.add(chunk.size());
+            } catch (RuntimeException ex) {
+                logger.warn("Batch of {} queued company writes failed, retrying them one by one", chunk.size(), ex);
+                for (CompanyChangedEvent change : chunk) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> writeChunk(List.of(change)));
+                        written.increment();
+                    } catch (RuntimeException retryEx) {
+                        failed.increment();
+                        logger.warn("Dropped queued {} of company {}", change.type(), change.id(), retryEx);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes changes of distinct companies in the current transaction and publishes an event for every
+     * row that was changed, to be delivered once the transaction commits.
+     */
+    private void writeChunk(List<CompanyChangedEvent> changes) {
+        List<CompanyChangedEvent> inserts = new ArrayList<>();
+        List<CompanyChangedEvent> updates = new ArrayList<>();
+        List<CompanyChangedEvent> deletes = new ArrayList<>();
+        for (CompanyChangedEvent change : changes) {
+            switch (change.type()) {
+                case ADDED -> inserts.add(change);
+                case UPDATED -> updates.add(change);
+                case DELETED -> deletes.add(change);
+            }
+        }
+        batchUpdate(INSERT_SQL, inserts, c -> new Object[]{c.id(), c.name(), c.location()});
+        batchUpdate(UPDATE_SQL, updates, c -> new Object[]{c.name(), c.location(), c.id()});
+        batchUpdate(DELETE_SQL, deletes, c -> new Object[]{c.id()});
+    }
+
+    private void batchUpdate(String sql, List<CompanyChangedEvent> changes, Function<CompanyChangedEvent, Object[]> arguments) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(sql, changes.stream().map(arguments).toList());
+        for (int i = 0; i < counts.length; i++) {
+            // An update or delete of a row deleted meanwhile changes nothing and is not announced
+            if (counts[i] != 0) {
+                eventPublisher.publishEvent(changes.get(i));
+            }
+        }
+    }
+
+    /**
+     * Hands out ids from blocks of {@link Company#ID_ALLOCATION_SIZE} reserved from "companies_seq",
+     * using the same block layout as Hibernate, so queued inserts never collide with ids assigned by
+     * the persistence provider or by an import.
+     */
+    private long allocateId() {
+        synchronized (idLock) {
+            if (nextId > maxId) {
+                Long highest = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR companies_seq", Long.class);
+                maxId = highest;
+                nextId = highest - Company.ID_ALLOCATION_SIZE + 1;
+            }
+            return nextId++;
+        }
+    }
+
+    @ManagedAttribute(description = "Changes queued and not yet being written")
+    public int getPendingWrites() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @ManagedAttribute(description = "Changes of the batch currently being written")
+    public int getInFlightWrites() {
+        lock.lock();
+        try {
+            return inFlight.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @ManagedAttribute(description = "Writes accepted into the queue")
+    public long getEnqueuedWrites() {
+        return enqueued.sum();
+    }
+
+    @ManagedAttribute(description = "Writes merged into a queued change of the same company")
+    public long getCoalescedWrites() {
+        return coalesced.sum();
+    }
+
+    @ManagedAttribute(description = "Batches committed")
+    public long getFlushedBatches() {
+        return batches.sum();
+    }
+
+    @ManagedAttribute(description = "Changes committed")
+    public long getFlushedWrites() {
+        return written.sum();
+    }
+
+    @ManagedAttribute(description = "Changes dropped after failing twice")
+    public long getFailedWrites() {
+        return failed.sum();
+    }
+
+    private record Pending(CompanyChangedEvent change, long sequence) {
+    }
+}
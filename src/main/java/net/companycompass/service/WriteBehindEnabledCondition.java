@@ -0,0 +1,16 @@
+package net.companycompass.service;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Matches when {@code companies.writeBehind.enabled} is true, which registers
+ * {@link WriteBehindCompanyService} in front of the synchronous services.
+ */
+class WriteBehindEnabledCondition implements Condition {
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        return context.getEnvironment().getProperty("companies.writeBehind.enabled", Boolean.class, false);
+    }
+}
@@ -0,0 +1,213 @@
+package net.companycompass.service.facet;
+
+import net.companycompass.model.Company;
+import net.companycompass.model.CompanyFilter;
+import net.companycompass.model.LocationFacet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * In-memory company counts per location, kept in the order of the facet panel so that the top
+ * locations are read without counting or sorting.
+ *
+ * <p>Locations are counted by their {@link CompanyFilter#key(String) key}, as the listing filter matches
+ * them, so "Berlin" and "berlin" are one facet. Each facet is shown in the spelling most of its companies
+ * use, ties in alphabetical order.
+ *
+ * <p>Locations with equal counts share a bucket, and the buckets form a list ordered by count, highest
+ * first. Adding or removing a company moves its location by one into the neighbouring bucket, so every
+ * change touches a constant number of buckets; within a bucket, locations are kept in alphabetical order.
+ * {@link #top(int)} walks the list from the highest bucket and so costs the number of facets returned,
+ * however many companies and locations there are. The location of every indexed company is remembered,
+ * so an update that moves a company is applied from its id alone.
+ *
+ * <p>All methods are synchronized; each holds the lock for a constant amount of work.
+ */
+public class LocationFacetIndex {
+    private final Map<Long, String> locations = new HashMap<>();
+    private final Map<String, Location> byKey = new HashMap<>();
+    private Bucket highest;
+    private Bucket lowest;
+
+    /**
+     * Counts a company in its location, replacing any previously indexed location for the same id.
+     *
+     * @param company the company to count; must have an id
+     */
+    public synchronized void index(Company company) {
+        String location = company.getLocation();
+        String previous = location == null ? locations.remove(company.getId()) : locations.put(company.getId(), location);
+        if (location != null && location.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            decrement(previous);
+        }
+        if (location != null) {
+            increment(location);
+        }
+    }
+
+    /**
+     * Removes a company from the count of its location. Unknown ids are ignored.
+     *
+     * @param id the id of the company to remove
+     */
+    public synchronized void remove(Long id) {
+        String previous = locations.remove(id);
+        if (previous != null) {
+            decrement(previous);
+        }
+    }
+
+    /**
+     * Returns the locations with the most companies, ties in alphabetical order.
+     *
+     * @param limit the maximum number of locations
+     * @return up to {@code limit} facets, largest first
+     */
+    public synchronized List<LocationFacet> top(int limit) {
+        List<LocationFacet> facets = new ArrayList<>(Math.min(limit, byKey.size()));
+        for (Bucket bucket = highest; bucket != null && facets.size() < limit; bucket = bucket.lower) {
+            for (String key : bucket.keys) {
+                if (facets.size() == limit) {
+                    break;
+                }
+                facets.add(new LocationFacet(byKey.get(key).display(), bucket.count));
+            }
+        }
+        return facets;
+    }
+
+    /**
+     * Returns the number of distinct locations, ignoring case.
+     *
+     * @return the location count
+     */
+    public synchronized int locationCount() {
+        return byKey.size();
+    }
+
+    /**
+     * Returns the number of counted companies.
+     *
+     * @return the company count
+     */
+    public synchronized int size() {
+        return locations.size();
+    }
+
+    private void increment(String spelling) {
+        String key = CompanyFilter.key(spelling);
+        Location location = byKey.computeIfAbsent(key, Location::new);
+        location.spellings.merge(spelling, 1L, Long::sum);
+        Bucket from = location.bucket;
+        long count = from == null ? 1 : from.count + 1;
+        Bucket above = from == null ? lowest : from.higher;
+        Bucket to = above != null && above.count == count ? above : insertBetween(above, from, count);
+        move(location, from, to);
+    }
+
+    private void decrement(String spelling) {
+        Location location = byKey.get(CompanyFilter.key(spelling));
+        location.spellings.computeIfPresent(spelling, (s, n) -> n == 1 ? null : n - 1);
+        Bucket from = location.bucket;
+        long count = from.count - 1;
+        if (count == 0) {
+            move(location, from, null);
+            return;
+        }
+        Bucket below = from.lower;
+        Bucket to = below != null && below.count == count ? below : insertBetween(from, below, count);
+        move(location, from, to);
+    }
+
+    private void move(Location location, Bucket from, Bucket to) {
+        if (from != null) {
+            from.keys.remove(location.key);
+            if (from.keys.isEmpty()) {
+                unlink(from);
+            }
+        }
+        location.bucket = to;
+        if (to == null) {
+            byKey.remove(location.key);
+        } else {
+            to.keys.add(location.key);
+        }
+    }
+
+    private Bucket insertBetween(Bucket higher, Bucket lower, long count) {
+        Bucket bucket = new Bucket(count);
+        bucket.higher = higher;
+        bucket.lower = lower;
+        if (higher == null) {
+            highest = bucket;
+        } else {
+            higher.lower = bucket;
+        }
+        if (lower == null) {
+            lowest = bucket;
+        } else {
+            lower.higher = bucket;
+        }
+        return bucket;
+    }
+
+    private void unlink(Bucket bucket) {
+        if (bucket.higher == null) {
+            highest = bucket.lower;
+        } else {
+            bucket.higher.lower = bucket.lower;
+        }
+        if (bucket.lower == null) {
+            lowest = bucket.higher;
+        } else {
+            bucket.lower.higher = bucket.higher;
+        }
+    }
+
+    /**
+     * One location, ignoring case: the bucket of its count and how many of its companies use each spelling.
+     */
+    private static final class Location {
+        private final String key;
+        private final Map<String, Long> spellings = new TreeMap<>();
+        private Bucket bucket;
+
+        Location(String key) {
+            this.key = key;
+        }
+
+        String display() {
+            String display = null;
+            long most = 0;
+            for (Map.Entry<String, Long> spelling : spellings.entrySet()) {
+                if (spelling.getValue() > most) {
+                    display = spelling.getKey();
+                    most = spelling.getValue();
+                }
+            }
+            return display;
+        }
+    }
+
+    /**
+     * The location keys that have exactly {@code count} companies.
+     */
+    private static final class Bucket {
+        private final long count;
+        private final TreeSet<String> keys = new TreeSet<>();
+        private Bucket higher;
+        private Bucket lower;
+
+        Bucket(long count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package net.companycompass.service.facet;
+
+import net.companycompass.model.Company;
+import net.companycompass.model.LocationFacet;
+import net.companycompass.service.CompanyChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Maintains the {@link LocationFacetIndex} for the database-backed service.
+ * The counts are built at startup by the {@link net.companycompass.service.CompanyIndexLoader}, and are
+ * then moved by one company at a time from the {@link CompanyChangedEvent}s published once a write has
+ * committed, so the facet panel never runs a {@code GROUP BY} over the table.
+ *
+ * <p>The counts hold the location of every company on the heap. With
+ * {@code companies.index.inMemory=false}, as for the file-backed database, they stay empty and ignore
+ * changes, and the service counts in the database once per data version instead.
+ */
+@Component
+@Profile("local")
+public class LocationFacetIndexer {
+    private final LocationFacetIndex index = new LocationFacetIndex();
+    private final boolean enabled;
+
+    public LocationFacetIndexer(@Value("${companies.index.inMemory:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns whether the locations are counted in memory.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Counts a company read at startup.
+     *
+     * @param company the company to count
+     */
+    public void index(Company company) {
+        index.index(company);
+    }
+
+    /**
+     * Applies a committed change to the counts: an addition or a move counts the company in its new
+     * location and, for a move, no longer in its old one.
+     *
+     * @param event the change that was written
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCompanyChanged(CompanyChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.type() == CompanyChangedEvent.Type.DELETED) {
+            index.remove(event.id());
+        } else {
+            index.index(event.toCompany());
+        }
+    }
+
+    public List<LocationFacet> top(int limit) {
+        return index.top(limit);
+    }
+}
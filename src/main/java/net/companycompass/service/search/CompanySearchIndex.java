@@ -0,0 +1,212 @@
+package net.companycompass.service.search;
+
+import net.companycompass.model.Company;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * An in-memory inverted index over company names and locations supporting ranked prefix search.
+ * Names and locations are split into lower-case alphanumeric tokens, and each token maps to the ids of
+ * the companies containing it. Tokens are kept in sorted skip lists, so all tokens starting with a query
+ * term are found with one range lookup instead of scanning the companies.
+ * Every query term must prefix-match a token of the name or the location. Matches are ranked by where
+ * and how well each term matched (whole word in the name first, then prefix in the name, then location),
+ * with a bonus when the name starts with the whole query.
+ * Reads are lock-free and may run concurrently with updates; updates are serialized.
+ */
+public class CompanySearchIndex {
+    /**
+     * Upper bound on the companies considered for ranking per query, which keeps very short,
+     * unselective typeahead queries cheap on large datasets.
+     */
+    static final int MAX_CANDIDATES = 10_000;
+
+    private final NavigableMap<String, Set<Long>> nameTokens = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Set<Long>> locationTokens = new ConcurrentSkipListMap<>();
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a company to the index, replacing any previously indexed values for the same id.
+     *
+     * @param company the company to index; must have an id
+     */
+    public synchronized void index(Company company) {
+        remove(company.getId());
+        Document document = new Document(company.getId(), company.getName(), company.getLocation());
+        documents.put(document.id(), document);
+        for (String token : document.nameTokens()) {
+            nameTokens.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet()).add(document.id());
+        }
+        for (String token : document.locationTokens()) {
+            locationTokens.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet()).add(document.id());
+        }
+    }
+
+    /**
+     * Removes a company from the index. Unknown ids are ignored.
+     *
+     * @param id the id of the company to remove
+     */
+    public synchronized void remove(Long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        unlink(nameTokens, document.nameTokens(), id);
+        unlink(locationTokens, document.locationTokens(), id);
+    }
+
+    /**
+     * Returns the number of indexed companies.
+     *
+     * @return the document count
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Finds the companies whose name or location contain words starting with every term of the query.
+     *
+     * @param query the free-text query, e.g. "blue cap" or "new y"
+     * @param limit the maximum number of results
+     * @return the best matches, best first; empty if the query has no searchable terms
+     */
+    public List<Company> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        // Start from the most selective term so the candidate set stays small.
+        Map<String, Set<Long>> postings = new HashMap<>();
+        for (String term : terms) {
+            postings.put(term, matching(term));
+        }
+        String first = terms.stream()
+                .min(Comparator.comparingInt(t -> postings.get(t).size()))
+                .orElseThrow();
+        List<Scored> scored = new ArrayList<>();
+        String phrase = String.join(" ", terms);
+        for (Long id : postings.get(first)) {
+            Document document = documents.get(id);
+            if (document == null) {
+                continue;
+            }
+            int score = 0;
+            for (String term : terms) {
+                int termScore = document.score(term);
+                if (termScore == 0) {
+                    score = 0;
+                    break;
+                }
+                score += termScore;
+            }
+            if (score > 0) {
+                if (document.normalizedName().startsWith(phrase)) {
+                    score += 3;
+                }
+                scored.add(new Scored(document, score));
+            }
+        }
+
+        return scored.stream()
+                .sorted(Comparator.comparingInt(Scored::score).reversed()
+                        .thenComparing(s -> s.document().name(), Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(s -> s.document().id()))
+                .limit(limit)
+                .map(s -> s.document().toCompany())
+                .toList();
+    }
+
+    private Set<Long> matching(String term) {
+        Set<Long> ids = new LinkedHashSet<>();
+        collect(nameTokens, term, ids);
+        collect(locationTokens, term, ids);
+        return ids;
+    }
+
+    private static void collect(NavigableMap<String, Set<Long>> tokens, String prefix, Set<Long> into) {
+        for (Set<Long> ids : tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            for (Long id : ids) {
+                if (into.size() >= MAX_CANDIDATES) {
+                    return;
+                }
+                into.add(id);
+            }
+        }
+    }
+
+    private static void unlink(NavigableMap<String, Set<Long>> tokens, Collection<String> documentTokens, Long id) {
+        for (String token : documentTokens) {
+            Set<Long> ids = tokens.get(token);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    tokens.remove(token, ids);
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits text into the lower-case alphanumeric tokens used by the index.
+     *
+     * @param text the text to split, may be null
+     * @return the distinct tokens in order of appearance
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : normalize(text).split(" ")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return List.copyOf(tokens);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{Alnum}]+", " ").trim();
+    }
+
+    private record Document(Long id, String name, String location, String normalizedName,
+                            List<String> nameTokens, List<String> locationTokens) {
+        Document(Long id, String name, String location) {
+            this(id, name, location, normalize(name), tokenize(name), tokenize(location));
+        }
+
+        int score(String term) {
+            int best = 0;
+            for (String token : nameTokens) {
+                best = Math.max(best, token.equals(term) ? 4 : token.startsWith(term) ? 2 : 0);
+            }
+            for (String token : locationTokens) {
+                best = Math.max(best, token.equals(term) ? 2 : token.startsWith(term) ? 1 : 0);
+            }
+            return best;
+        }
+
+        Company toCompany() {
+            Company company = new Company(name, location);
+            company.setId(id);
+            return company;
+        }
+    }
+
+    private record Scored(Document document, int score) {
+    }
+}
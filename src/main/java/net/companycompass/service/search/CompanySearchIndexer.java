@@ -0,0 +1,66 @@
+package net.companycompass.service.search;
+
+import net.companycompass.model.Company;
+import net.companycompass.service.CompanyChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Maintains the {@link CompanySearchIndex} for the database-backed service.
+ * The index is filled at startup by the {@link net.companycompass.service.CompanyIndexLoader}, and is
+ * then kept current from the {@link CompanyChangedEvent}s published once a write has committed.
+ *
+ * <p>The index holds every company on the heap. With {@code companies.index.inMemory=false}, as for the
+ * file-backed database, it stays empty and ignores changes, and the service searches the database.
+ */
+@Component
+@Profile("local")
+public class CompanySearchIndexer {
+    private final CompanySearchIndex index = new CompanySearchIndex();
+    private final boolean enabled;
+
+    public CompanySearchIndexer(@Value("${companies.index.inMemory:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns whether the companies are indexed in memory.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds a company read at startup to the index.
+     *
+     * @param company the company to index
+     */
+    public void index(Company company) {
+        index.index(company);
+    }
+
+    /**
+     * Applies a committed change to the index.
+     *
+     * @param event the change that was written
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCompanyChanged(CompanyChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.type() == CompanyChangedEvent.Type.DELETED) {
+            index.remove(event.id());
+        } else {
+            index.index(event.toCompany());
+        }
+    }
+
+    public List<Company> search(String query, int limit) {
+        return index.search(query, limit);
+    }
+}
@@ -0,0 +1,14 @@
+UPDATE companies
+SET name = ''
+WHERE name IS NULL;
+
+UPDATE companies
+SET location = ''
+WHERE location IS NULL;
+
+ALTER TABLE companies ALTER COLUMN name SET NOT NULL;
+ALTER TABLE companies ALTER COLUMN location SET DEFAULT '';
+ALTER TABLE companies ALTER COLUMN location SET NOT NULL;
+
+CREATE INDEX idx_companies_name_id ON companies (name, id);
+CREATE INDEX idx_companies_location_id ON companies (location, id);
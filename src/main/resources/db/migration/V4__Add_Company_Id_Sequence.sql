@@ -0,0 +1,8 @@
+CREATE SEQUENCE companies_seq START WITH 1 INCREMENT BY 50;
+
+-- Hibernate's pooled optimizer treats each sequence value as the highest id of a block of 50,
+-- so the first value handed out must leave a full block above the existing ids.
+ALTER SEQUENCE companies_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM companies);
+
+ALTER TABLE companies ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE companies ALTER COLUMN id SET DEFAULT NEXT VALUE FOR companies_seq;
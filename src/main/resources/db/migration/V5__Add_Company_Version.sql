@@ -0,0 +1,3 @@
+-- Optimistic locking: every update increments the version, and a conditional update or delete
+-- that names a stale version affects no row.
+ALTER TABLE companies ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,10 @@
+-- Lower-case copies of name and location, kept current by the database, for case-insensitive filters.
+-- Filtering compares these columns rather than LOWER(name), so a filter is an index seek instead of a
+-- scan that lower-cases every row.
+ALTER TABLE companies ADD COLUMN name_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(name));
+ALTER TABLE companies ADD COLUMN location_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(location));
+
+-- Names starting with a prefix, in name order
+CREATE INDEX idx_companies_name_key_id ON companies (name_key, id);
+-- Companies in one location, optionally with a name prefix, in name order
+CREATE INDEX idx_companies_location_key_name_key_id ON companies (location_key, name_key, id);